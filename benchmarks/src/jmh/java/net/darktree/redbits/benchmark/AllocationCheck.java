@@ -0,0 +1,85 @@
+package net.darktree.redbits.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Checks that a gate tick does not allocate. Every gate harness is set up the same way as in the benchmarks,
+ * warmed up until the hot paths are compiled, and then ticked N times while the allocated bytes of the
+ * current thread are tracked, any allocation fails the check. Run it with `./gradlew :benchmarks:allocationCheck`.
+ */
+public final class AllocationCheck {
+
+	private static final int WARMUP = Integer.getInteger("redbits.allocation.warmup", 50000);
+	private static final int TICKS = Integer.getInteger("redbits.allocation.ticks", 10000);
+
+	private static final List<Supplier<GateBenchmark>> GATES = List.of(
+		InverterBenchmark::new,
+		FlipFlopBenchmark::new,
+		DetectorBenchmark::new,
+		TwoWayRepeaterBenchmark::new,
+		LatchBenchmark::new,
+		TimerBenchmark::new
+	);
+
+	private static final com.sun.management.ThreadMXBean THREADS = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+	public static void main(String[] args) {
+		if (!THREADS.isThreadAllocatedMemorySupported()) {
+			throw new AssertionError("Thread allocation tracking is not supported by this JVM");
+		}
+
+		THREADS.setThreadAllocatedMemoryEnabled(true);
+		long thread = Thread.currentThread().getId();
+		long overhead = overhead(thread);
+		int failures = 0;
+
+		for (Supplier<GateBenchmark> supplier : GATES) {
+			for (boolean powered : new boolean[] {false, true}) {
+				GateBenchmark gate = supplier.get();
+				gate.powered = powered;
+				gate.setup();
+
+				for (int i = 0; i < WARMUP; i ++) {
+					gate.scheduledTick();
+				}
+
+				long before = THREADS.getThreadAllocatedBytes(thread);
+
+				for (int i = 0; i < TICKS; i ++) {
+					gate.scheduledTick();
+				}
+
+				long allocated = THREADS.getThreadAllocatedBytes(thread) - before - overhead;
+				String name = gate.getClass().getSimpleName() + " (powered=" + powered + ")";
+
+				if (allocated > 0) {
+					System.out.println("[RedBits] " + name + " allocated " + allocated + " bytes over " + TICKS + " gate ticks");
+					failures ++;
+				} else {
+					System.out.println("[RedBits] " + name + " did not allocate over " + TICKS + " gate ticks");
+				}
+			}
+		}
+
+		if (failures > 0) {
+			throw new AssertionError(failures + " gate harnesses allocated during their scheduled ticks");
+		}
+	}
+
+	/**
+	 * Bytes allocated by reading the allocation counter itself, subtracted from every measurement
+	 */
+	private static long overhead(long thread) {
+		long overhead = Long.MAX_VALUE;
+
+		for (int i = 0; i < 1000; i ++) {
+			long before = THREADS.getThreadAllocatedBytes(thread);
+			overhead = Math.min(overhead, THREADS.getThreadAllocatedBytes(thread) - before);
+		}
+
+		return overhead;
+	}
+
+}
@@ -0,0 +1,53 @@
+package net.darktree.redbits.benchmark;
+
+import net.darktree.redbits.RedBits;
+import net.darktree.redbits.config.Settings;
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.block.Block;
+
+/**
+ * Boots the vanilla registries without a server. The RedBits blocks, items and entities are registered
+ * before the registries get frozen, the normal RedBits initializer is not used as it needs a running Fabric Loader,
+ * so the config stays at its defaults unless a benchmark replaces it.
+ */
+public final class BenchmarkBootstrap {
+
+	public static final Block INVERTER;
+	public static final Block T_FLIP_FLOP;
+	public static final Block DETECTOR;
+	public static final Block TWO_WAY_REPEATER;
+	public static final Block LATCH;
+	public static final Block TIMER;
+
+	static {
+		SharedConstants.createGameVersion();
+		RedBits.registerContent();
+
+		INVERTER = RedBits.INVERTER;
+		T_FLIP_FLOP = RedBits.T_FLIP_FLOP;
+		DETECTOR = RedBits.DETECTOR;
+		TWO_WAY_REPEATER = RedBits.TWO_WAY_REPEATER;
+		LATCH = RedBits.LATCH;
+		TIMER = RedBits.TIMER;
+
+		Bootstrap.initialize();
+	}
+
+	/**
+	 * Forces the static initializer, call from every benchmark setup
+	 */
+	public static void init() {
+
+	}
+
+	/**
+	 * Replaces the RedBits settings, returns the previous ones so that they can be restored
+	 */
+	public static Settings configure(Settings settings) {
+		Settings previous = RedBits.CONFIG;
+		RedBits.CONFIG = settings;
+		return previous;
+	}
+
+}
@@ -0,0 +1,183 @@
+package net.darktree.redbits.benchmark;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.fluid.FluidState;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.util.profiler.DummyProfiler;
+import net.minecraft.world.tick.OrderedTick;
+import net.minecraft.world.tick.TickPriority;
+import net.minecraft.world.tick.WorldTickScheduler;
+import sun.misc.Unsafe;
+
+import java.lang.reflect.Field;
+
+/**
+ * In-memory stand-in for a server world, only the parts touched by the gates are implemented.
+ * Block states are kept in a map keyed by packed position, scheduled ticks and neighbor
+ * updates are only counted, so every benchmark invocation performs the full amount of work.
+ *
+ * The instance is created without running the ServerWorld constructor, so none
+ * of the inherited fields are initialized and must not be used.
+ */
+public final class BenchmarkWorld extends ServerWorld {
+
+	private static final Unsafe UNSAFE = getUnsafe();
+
+	private Long2ObjectOpenHashMap<BlockState> states;
+	private CountingTickScheduler ticks;
+	private long time;
+	private long order;
+
+	public long writes;
+	public long updates;
+
+	@SuppressWarnings("ConstantConditions")
+	private BenchmarkWorld() {
+		super(null, null, null, null, null, null, null, false, 0L, null, false);
+		throw new AssertionError(); // unreachable statement
+	}
+
+	public static BenchmarkWorld create() {
+		try {
+			BenchmarkWorld world = (BenchmarkWorld) UNSAFE.allocateInstance(BenchmarkWorld.class);
+			world.states = new Long2ObjectOpenHashMap<>();
+			world.states.defaultReturnValue(Blocks.AIR.getDefaultState());
+			world.ticks = new CountingTickScheduler();
+			return world;
+		} catch (InstantiationException e) {
+			throw new RuntimeException("[RedBits] Unable to create benchmark world!", e);
+		}
+	}
+
+	private static Unsafe getUnsafe() {
+		try {
+			Field field = Unsafe.class.getDeclaredField("theUnsafe");
+			field.setAccessible(true);
+			return (Unsafe) field.get(null);
+		} catch (ReflectiveOperationException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Places a state without triggering any block callbacks
+	 */
+	public void put(BlockPos pos, BlockState state) {
+		states.put(pos.asLong(), state);
+	}
+
+	public long getScheduledTicks() {
+		return ticks.scheduled;
+	}
+
+	@Override
+	public BlockState getBlockState(BlockPos pos) {
+		return states.get(pos.asLong());
+	}
+
+	@Override
+	public FluidState getFluidState(BlockPos pos) {
+		return getBlockState(pos).getFluidState();
+	}
+
+	@Override
+	public BlockEntity getBlockEntity(BlockPos pos) {
+		return null;
+	}
+
+	@Override
+	public boolean setBlockState(BlockPos pos, BlockState state, int flags, int maxUpdateDepth) {
+		BlockState old = states.put(pos.asLong(), state);
+		writes ++;
+
+		// mirror what the chunk does on a state change, neighbor updates are only counted
+		if (old != null && old != state) {
+			old.onStateReplaced(this, pos, state, false);
+			state.onBlockAdded(this, pos, old, false);
+		}
+
+		return true;
+	}
+
+	@Override
+	public long getTime() {
+		return time;
+	}
+
+	@Override
+	public WorldTickScheduler<Block> getBlockTickScheduler() {
+		return ticks;
+	}
+
+	@Override
+	public void scheduleBlockTick(BlockPos pos, Block block, int delay, TickPriority priority) {
+		// the tick is only counted, creating an OrderedTick would show up in the allocation check
+		ticks.scheduled ++;
+		order ++;
+	}
+
+	@Override
+	public void scheduleBlockTick(BlockPos pos, Block block, int delay) {
+		scheduleBlockTick(pos, block, delay, TickPriority.NORMAL);
+	}
+
+	@Override
+	public void updateNeighborsAlways(BlockPos pos, Block sourceBlock) {
+		updates += 6;
+	}
+
+	@Override
+	public void updateNeighborsExcept(BlockPos pos, Block sourceBlock, Direction direction) {
+		updates += 5;
+	}
+
+	@Override
+	public void updateNeighbor(BlockPos pos, Block sourceBlock, BlockPos sourcePos) {
+		updates ++;
+	}
+
+	@Override
+	public void updateNeighbor(BlockState state, BlockPos pos, Block sourceBlock, BlockPos sourcePos, boolean notify) {
+		updates ++;
+	}
+
+	/**
+	 * Tick scheduler that never retains ticks, so "is ticking" checks always take the slow path
+	 */
+	static final class CountingTickScheduler extends WorldTickScheduler<Block> {
+
+		private long scheduled;
+
+		CountingTickScheduler() {
+			super(pos -> true, () -> DummyProfiler.INSTANCE);
+		}
+
+		@Override
+		public void scheduleTick(OrderedTick<Block> orderedTick) {
+			scheduled ++;
+		}
+
+		@Override
+		public boolean isQueued(BlockPos pos, Block type) {
+			return false;
+		}
+
+		@Override
+		public boolean isTicking(BlockPos pos, Block type) {
+			return false;
+		}
+
+		@Override
+		public int getTickCount() {
+			return 0;
+		}
+
+	}
+
+}
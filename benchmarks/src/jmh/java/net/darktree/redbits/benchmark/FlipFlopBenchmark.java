@@ -0,0 +1,18 @@
+package net.darktree.redbits.benchmark;
+
+import net.minecraft.block.Block;
+import net.minecraft.util.math.Direction;
+
+public class FlipFlopBenchmark extends GateBenchmark {
+
+	@Override
+	protected Block getBlock() {
+		return BenchmarkBootstrap.T_FLIP_FLOP;
+	}
+
+	@Override
+	protected Direction getInputDirection() {
+		return Direction.NORTH;
+	}
+
+}
@@ -0,0 +1,65 @@
+package net.darktree.redbits.benchmark;
+
+import net.darktree.redbits.blocks.AbstractRedstoneGate;
+import net.minecraft.block.AbstractRedstoneGateBlock;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.world.World;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Access to the protected gate hot paths, both for the vanilla derived
+ * gates (AbstractRedstoneGateBlock) and the RedBits ones (AbstractRedstoneGate)
+ */
+public final class GateAccess {
+
+	private static final MethodHandle VANILLA_UPDATE_POWERED = find(AbstractRedstoneGateBlock.class, "updatePowered", void.class, World.class, BlockPos.class, BlockState.class);
+	private static final MethodHandle VANILLA_UPDATE_TARGET = find(AbstractRedstoneGateBlock.class, "updateTarget", void.class, World.class, BlockPos.class, BlockState.class);
+	private static final MethodHandle VANILLA_GET_POWER = find(AbstractRedstoneGateBlock.class, "getPower", int.class, World.class, BlockPos.class, BlockState.class);
+
+	private static final MethodHandle UPDATE_POWERED = find(AbstractRedstoneGate.class, "updatePowered", void.class, World.class, BlockPos.class, BlockState.class);
+	private static final MethodHandle UPDATE_TARGET = find(AbstractRedstoneGate.class, "updateTarget", void.class, World.class, BlockPos.class, BlockState.class);
+	private static final MethodHandle GET_INPUT_POWER = find(AbstractRedstoneGate.class, "getInputPower", int.class, World.class, BlockPos.class, Direction.class);
+
+	private static MethodHandle find(Class<?> owner, String name, Class<?> result, Class<?>... params) {
+		try {
+			return MethodHandles.privateLookupIn(owner, MethodHandles.lookup()).findVirtual(owner, name, MethodType.methodType(result, params));
+		} catch (ReflectiveOperationException e) {
+			throw new RuntimeException("[RedBits] Unable to access gate method '" + name + "'!", e);
+		}
+	}
+
+	public static void updatePowered(Block block, World world, BlockPos pos, BlockState state) throws Throwable {
+		if (block instanceof AbstractRedstoneGate gate) {
+			UPDATE_POWERED.invokeExact(gate, world, pos, state);
+		} else {
+			VANILLA_UPDATE_POWERED.invokeExact((AbstractRedstoneGateBlock) block, world, pos, state);
+		}
+	}
+
+	public static void updateTarget(Block block, World world, BlockPos pos, BlockState state) throws Throwable {
+		if (block instanceof AbstractRedstoneGate gate) {
+			UPDATE_TARGET.invokeExact(gate, world, pos, state);
+		} else {
+			VANILLA_UPDATE_TARGET.invokeExact((AbstractRedstoneGateBlock) block, world, pos, state);
+		}
+	}
+
+	/**
+	 * For the vanilla derived gates this is the back input, for the two-sided
+	 * gates it is the input read from the given direction
+	 */
+	public static int getInputPower(Block block, World world, BlockPos pos, BlockState state, BlockPos input, Direction direction) throws Throwable {
+		if (block instanceof AbstractRedstoneGate gate) {
+			return (int) GET_INPUT_POWER.invokeExact(gate, world, input, direction);
+		} else {
+			return (int) VANILLA_GET_POWER.invokeExact((AbstractRedstoneGateBlock) block, world, pos, state);
+		}
+	}
+
+}
@@ -0,0 +1,90 @@
+package net.darktree.redbits.benchmark;
+
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.util.math.random.Random;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Common harness for all gates, every gate is placed on stone with its input on one side
+ * and a redstone wire on the other side. The 'powered' parameter controls if the input
+ * is a redstone block or air. The gate is reset after each invocation so that
+ * every call evaluates the same transition.
+ */
+@State(Scope.Thread)
+public abstract class GateBenchmark {
+
+	@Param({"false", "true"})
+	public boolean powered;
+
+	protected BenchmarkWorld world;
+	protected Block block;
+	protected BlockState state;
+	protected BlockPos pos;
+	protected BlockPos input;
+	protected Direction direction;
+	protected Random random;
+
+	protected abstract Block getBlock();
+
+	/**
+	 * Direction from the gate towards its (first) input
+	 */
+	protected abstract Direction getInputDirection();
+
+	protected BlockState getState(Block block) {
+		return block.getDefaultState();
+	}
+
+	@Setup
+	public void setup() {
+		BenchmarkBootstrap.init();
+
+		world = BenchmarkWorld.create();
+		block = getBlock();
+		state = getState(block);
+		direction = getInputDirection();
+		random = Random.create(42);
+
+		pos = new BlockPos(0, 64, 0);
+		input = pos.offset(direction);
+
+		world.put(pos.down(), Blocks.STONE.getDefaultState());
+		world.put(input.down(), Blocks.STONE.getDefaultState());
+		world.put(pos.offset(direction.getOpposite()).down(), Blocks.STONE.getDefaultState());
+
+		world.put(pos, state);
+		world.put(input, powered ? Blocks.REDSTONE_BLOCK.getDefaultState() : Blocks.AIR.getDefaultState());
+		world.put(pos.offset(direction.getOpposite()), Blocks.REDSTONE_WIRE.getDefaultState());
+	}
+
+	@Benchmark
+	public BlockState scheduledTick() {
+		state.scheduledTick(world, pos, random);
+		BlockState result = world.getBlockState(pos);
+		world.put(pos, state);
+		return result;
+	}
+
+	@Benchmark
+	public long updatePowered() throws Throwable {
+		GateAccess.updatePowered(block, world, pos, state);
+		world.put(pos, state);
+		return world.getScheduledTicks();
+	}
+
+	@Benchmark
+	public int getInputPower() throws Throwable {
+		return GateAccess.getInputPower(block, world, pos, state, input, direction);
+	}
+
+	@Benchmark
+	public long updateTarget() throws Throwable {
+		GateAccess.updateTarget(block, world, pos, state);
+		return world.updates;
+	}
+
+}
@@ -0,0 +1,18 @@
+package net.darktree.redbits.benchmark;
+
+import net.minecraft.block.Block;
+import net.minecraft.util.math.Direction;
+
+public class InverterBenchmark extends GateBenchmark {
+
+	@Override
+	protected Block getBlock() {
+		return BenchmarkBootstrap.INVERTER;
+	}
+
+	@Override
+	protected Direction getInputDirection() {
+		return Direction.NORTH;
+	}
+
+}
@@ -0,0 +1,107 @@
+package net.darktree.redbits.benchmark;
+
+import net.darktree.redbits.config.Settings;
+import net.darktree.redbits.utils.PowerCache;
+import net.minecraft.block.Blocks;
+import net.minecraft.util.math.BlockPos;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * A wall of lamps fed by one powered bus, every lamp sits on stone and reads its received power once
+ * for each neighbor update it gets in a tick. Compares the plain sweep with the memo, and measures
+ * the invalidation the memo adds to every block change.
+ */
+@State(Scope.Thread)
+public class PowerCacheBenchmark {
+
+	@Param({"64"})
+	public int lamps;
+
+	// neighbor updates a lamp gets in one tick
+	@Param({"1", "6"})
+	public int reads;
+
+	private BenchmarkWorld world;
+	private BlockPos[] positions;
+	private Settings previous;
+
+	@Setup
+	public void setup() {
+		BenchmarkBootstrap.init();
+
+		world = BenchmarkWorld.create();
+		positions = new BlockPos[lamps];
+		Settings settings = new Settings();
+		settings.power_cache = true;
+		previous = BenchmarkBootstrap.configure(settings);
+
+		for (int x = 0; x < lamps; x ++) {
+			BlockPos pos = new BlockPos(x, 64, 0);
+			positions[x] = pos;
+
+			world.put(pos.down(), Blocks.STONE.getDefaultState());
+			world.put(pos, Blocks.REDSTONE_LAMP.getDefaultState());
+			world.put(pos.south(), Blocks.REDSTONE_WIRE.getDefaultState());
+			world.put(pos.south().down(), Blocks.STONE.getDefaultState());
+			world.put(pos.north(), Blocks.REDSTONE_BLOCK.getDefaultState());
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		BenchmarkBootstrap.configure(previous);
+	}
+
+	/**
+	 * One tick of the wall without the memo
+	 */
+	@Benchmark
+	public int sweep() {
+		int sum = 0;
+
+		for (BlockPos pos : positions) {
+			for (int i = 0; i < reads; i ++) {
+				sum += world.getReceivedRedstonePower(pos);
+			}
+		}
+
+		return sum;
+	}
+
+	/**
+	 * One tick of the wall with the memo, cleared at the end as the world tick does
+	 */
+	@Benchmark
+	public int memo() {
+		int sum = 0;
+
+		for (BlockPos pos : positions) {
+			for (int i = 0; i < reads; i ++) {
+				sum += PowerCache.getReceivedPower(world, pos);
+			}
+		}
+
+		PowerCache.clear(world);
+		return sum;
+	}
+
+	/**
+	 * One tick of the wall with the memo, where every lamp also changes the bus next to it after its reads
+	 */
+	@Benchmark
+	public int memoWithChanges() {
+		int sum = 0;
+
+		for (BlockPos pos : positions) {
+			for (int i = 0; i < reads; i ++) {
+				sum += PowerCache.getReceivedPower(world, pos);
+			}
+
+			PowerCache.invalidate(world, pos.south());
+		}
+
+		PowerCache.clear(world);
+		return sum;
+	}
+
+}
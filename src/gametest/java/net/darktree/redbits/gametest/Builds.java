@@ -0,0 +1,93 @@
+package net.darktree.redbits.gametest;
+
+import net.darktree.redbits.RedBits;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.state.property.Properties;
+import net.minecraft.test.TestContext;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Helpers for builds placed from code on the empty platform, shared by the game tests and the circuit benchmarks.
+ * The floor is at y=0 and the circuits start at y=1.
+ */
+public final class Builds {
+
+	public static final String PLATFORM = "redbits-gametest:platform";
+	public static final int WIDTH = 48;
+	public static final int HEIGHT = 6;
+
+	public static void floor(TestContext context, Block block) {
+		for (int z = 0; z < WIDTH; z ++) {
+			for (int x = 0; x < WIDTH; x ++) {
+				context.setBlockState(new BlockPos(x, 0, z), block.getDefaultState());
+			}
+		}
+	}
+
+	/**
+	 * Returns the default state of the gate, outputting in the given direction
+	 */
+	public static BlockState gate(Block block, Direction output) {
+		return block.getDefaultState().with(Properties.HORIZONTAL_FACING, output.getOpposite());
+	}
+
+	/**
+	 * A closed path of inverters, cells where the path turns, or that are not
+	 * meant to hold an inverter, get redstone dust instead
+	 */
+	public static class Ring {
+
+		private final List<BlockPos> cells = new ArrayList<>();
+		private final List<Boolean> gates = new ArrayList<>();
+		private BlockPos head;
+
+		public Ring(BlockPos start) {
+			this.head = start;
+		}
+
+		public void walk(Direction direction, int length, boolean gate) {
+			for (int i = 0; i < length; i ++) {
+				cells.add(head);
+				gates.add(gate);
+				head = head.offset(direction);
+			}
+		}
+
+		public void build(TestContext context) {
+			if (!head.equals(cells.get(0))) {
+				throw new IllegalStateException("Ring is not closed, it ends at " + head);
+			}
+
+			List<BlockPos> wires = new ArrayList<>();
+
+			for (int i = 0; i < cells.size(); i ++) {
+				BlockPos previous = cells.get((i + cells.size() - 1) % cells.size());
+				BlockPos cell = cells.get(i);
+				BlockPos next = cells.get((i + 1) % cells.size());
+
+				Direction input = Direction.fromVector(cell.subtract(previous));
+				Direction output = Direction.fromVector(next.subtract(cell));
+
+				if (gates.get(i) && input == output) {
+					context.setBlockState(cell, gate(RedBits.INVERTER, output));
+				} else {
+					context.setBlockState(cell, Blocks.REDSTONE_WIRE.getDefaultState());
+					wires.add(cell);
+				}
+			}
+
+			// connect the dust to its neighbours, like it would be when placed by a player
+			for (BlockPos wire : wires) {
+				context.setBlockState(wire, Block.postProcessState(context.getBlockState(wire), context.getWorld(), context.getAbsolutePos(wire)));
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,182 @@
+package net.darktree.redbits.gametest;
+
+import net.darktree.redbits.RedBits;
+import net.darktree.redbits.circuit.GateKind;
+import net.darktree.redbits.utils.GateTickQueue;
+import net.fabricmc.fabric.api.gametest.v1.FabricGameTest;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtElement;
+import net.minecraft.nbt.NbtList;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.test.AfterBatch;
+import net.minecraft.test.BeforeBatch;
+import net.minecraft.test.GameTest;
+import net.minecraft.test.TestContext;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.world.ChunkSerializer;
+import net.minecraft.world.chunk.ProtoChunk;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Checks that compiled circuit clusters are written into their chunks when the chunks are saved. A clock is left
+ * running until its gates are compiled, the world is saved, and the saved chunks are read back and compared with
+ * the world. The saved chunks must hold the current gate states and at least one pending gate tick (a vanilla tick
+ * or a gate tick queue entry), otherwise the clock would be stopped or rolled back after a crash. The clock then
+ * has to keep running after the save.
+ */
+public class CircuitPersistenceTests implements FabricGameTest {
+
+	private static final String BATCH = "circuit_persistence";
+	private static final int SAVE_TICK = 60;
+	private static final int TICKS = 120;
+
+	private static boolean previous;
+
+	@BeforeBatch(batchId = BATCH)
+	public static void enableCompiled(ServerWorld world) {
+		previous = RedBits.CONFIG.compiled_circuits;
+		RedBits.CONFIG.compiled_circuits = true;
+	}
+
+	@AfterBatch(batchId = BATCH)
+	public static void restoreCompiled(ServerWorld world) {
+		RedBits.CONFIG.compiled_circuits = previous;
+	}
+
+	/**
+	 * The same ring of 39 inverters as in {@link CompiledCircuitTests}, it never settles
+	 */
+	@GameTest(templateName = Builds.PLATFORM, batchId = BATCH, tickLimit = TICKS + 20)
+	public void clockSurvivesSave(TestContext context) {
+		Builds.floor(context, Blocks.STONE);
+
+		Builds.Ring ring = new Builds.Ring(new BlockPos(2, 1, 2));
+		ring.walk(Direction.EAST, 1, true);
+		ring.walk(Direction.EAST, 1, false);
+		ring.walk(Direction.EAST, 9, true);
+		ring.walk(Direction.SOUTH, 11, true);
+		ring.walk(Direction.WEST, 11, true);
+		ring.walk(Direction.NORTH, 11, true);
+		ring.build(context);
+
+		context.runAtTick(SAVE_TICK, () -> save(context));
+
+		// the states written by the save are the baseline, the clock has to move on from them
+		long[] saved = new long[1];
+		boolean[] changed = new boolean[1];
+		context.runAtTick(SAVE_TICK + 1, () -> saved[0] = hash(context));
+
+		for (int tick = SAVE_TICK + 2; tick <= TICKS; tick ++) {
+			context.runAtTick(tick, () -> changed[0] |= hash(context) != saved[0]);
+		}
+
+		context.runAtTick(TICKS, () -> {
+			if (!changed[0]) {
+				context.throwGameTestException("Clock stopped after its chunks were saved");
+			}
+
+			context.complete();
+		});
+	}
+
+	private static void save(TestContext context) {
+		ServerWorld world = context.getWorld();
+		world.getChunkManager().save(false);
+
+		Map<ChunkPos, NbtCompound> saved = new HashMap<>();
+		Map<ChunkPos, ProtoChunk> chunks = new HashMap<>();
+		BlockPos.Mutable pos = new BlockPos.Mutable();
+		int gates = 0;
+		int pending = 0;
+
+		for (int z = 0; z < Builds.WIDTH; z ++) {
+			for (int x = 0; x < Builds.WIDTH; x ++) {
+				BlockPos absolute = context.getAbsolutePos(pos.set(x, 1, z));
+				BlockState state = world.getBlockState(absolute);
+
+				if (GateKind.of(state) == null) {
+					continue;
+				}
+
+				ChunkPos chunkPos = new ChunkPos(absolute);
+				NbtCompound nbt = saved.computeIfAbsent(chunkPos, key -> load(context, key));
+				ProtoChunk chunk = chunks.computeIfAbsent(chunkPos, key -> ChunkSerializer.deserialize(world, world.getPointOfInterestStorage(), key, nbt));
+				BlockState stored = chunk.getBlockState(absolute);
+
+				if (stored != state) {
+					context.throwGameTestException("Saved state of the gate at " + pos.toShortString() + " is " + stored + ", but the world has " + state);
+				}
+
+				gates ++;
+
+				if (chunk.getBlockTickScheduler().isQueued(absolute, state.getBlock()) || isSaved(nbt, absolute)) {
+					pending ++;
+				}
+			}
+		}
+
+		if (gates == 0) {
+			context.throwGameTestException("No gates found in the saved chunks");
+		}
+
+		if (pending == 0) {
+			context.throwGameTestException("The saved chunks hold none of the pending gate ticks");
+		}
+	}
+
+	private static NbtCompound load(TestContext context, ChunkPos pos) {
+		Optional<NbtCompound> nbt = context.getWorld().getChunkManager().threadedAnvilChunkStorage.getNbt(pos).join();
+
+		if (nbt.isEmpty()) {
+			context.throwGameTestException("Chunk " + pos + " was not saved");
+		}
+
+		return nbt.get();
+	}
+
+	/**
+	 * Returns true if the chunk NBT holds a gate tick queue entry at the given position
+	 */
+	private static boolean isSaved(NbtCompound nbt, BlockPos pos) {
+		NbtList list = nbt.getList(GateTickQueue.KEY, NbtElement.COMPOUND_TYPE);
+
+		for (int i = 0; i < list.size(); i ++) {
+			NbtCompound entry = list.getCompound(i);
+
+			if (entry.getInt("x") == pos.getX() && entry.getInt("y") == pos.getY() && entry.getInt("z") == pos.getZ()) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Hashes the gate states of the ring, with FNV-1a over the raw state ids
+	 */
+	private static long hash(TestContext context) {
+		long hash = 0xcbf29ce484222325L;
+		BlockPos.Mutable pos = new BlockPos.Mutable();
+
+		for (int z = 0; z < Builds.WIDTH; z ++) {
+			for (int x = 0; x < Builds.WIDTH; x ++) {
+				BlockState state = context.getBlockState(pos.set(x, 1, z));
+
+				if (GateKind.of(state) != null) {
+					hash = (hash ^ Block.getRawIdFromState(state)) * 0x100000001b3L;
+				}
+			}
+		}
+
+		return hash;
+	}
+
+}
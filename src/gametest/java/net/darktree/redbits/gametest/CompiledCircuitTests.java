@@ -0,0 +1,306 @@
+package net.darktree.redbits.gametest;
+
+import net.darktree.redbits.RedBits;
+import net.darktree.redbits.blocks.TimerBlock;
+import net.darktree.redbits.circuit.CircuitEngine;
+import net.darktree.redbits.circuit.GateKind;
+import net.fabricmc.fabric.api.gametest.v1.FabricGameTest;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.test.AfterBatch;
+import net.minecraft.test.BeforeBatch;
+import net.minecraft.test.GameTest;
+import net.minecraft.test.TestContext;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * Runs the same builds once with vanilla gate logic and once with compiled circuit clusters, and checks
+ * that both runs go through the same states. Every tick the blocks that are not compilable gates are hashed
+ * (the internal gates of a cluster keep a stale state in the world), and at the end all clusters of the build
+ * are released and the full area is compared. The run that finishes second compares itself with the first one.
+ * The same is done with compiled clusters stepped one by one and stepped in parallel.
+ */
+public class CompiledCircuitTests implements FabricGameTest {
+
+	private static final String VANILLA = "compiled_circuits_off";
+	private static final String COMPILED = "compiled_circuits_on";
+	private static final String SERIAL = "parallel_circuits_off";
+	private static final String PARALLEL = "parallel_circuits_on";
+	private static final int TICKS = 200;
+
+	private static final Map<String, Trace> TRACES = new HashMap<>();
+	private static boolean previous;
+	private static boolean previousParallel;
+
+	@BeforeBatch(batchId = VANILLA)
+	public static void disableCompiled(ServerWorld world) {
+		previous = RedBits.CONFIG.compiled_circuits;
+		RedBits.CONFIG.compiled_circuits = false;
+	}
+
+	@BeforeBatch(batchId = COMPILED)
+	public static void enableCompiled(ServerWorld world) {
+		previous = RedBits.CONFIG.compiled_circuits;
+		RedBits.CONFIG.compiled_circuits = true;
+	}
+
+	@AfterBatch(batchId = VANILLA)
+	public static void restoreVanilla(ServerWorld world) {
+		RedBits.CONFIG.compiled_circuits = previous;
+	}
+
+	@AfterBatch(batchId = COMPILED)
+	public static void restoreCompiled(ServerWorld world) {
+		RedBits.CONFIG.compiled_circuits = previous;
+	}
+
+	@BeforeBatch(batchId = SERIAL)
+	public static void disableParallel(ServerWorld world) {
+		enableCompiled(world);
+		previousParallel = RedBits.CONFIG.parallel_circuits;
+		RedBits.CONFIG.parallel_circuits = false;
+	}
+
+	@BeforeBatch(batchId = PARALLEL)
+	public static void enableParallel(ServerWorld world) {
+		enableCompiled(world);
+		previousParallel = RedBits.CONFIG.parallel_circuits;
+		RedBits.CONFIG.parallel_circuits = true;
+	}
+
+	@AfterBatch(batchId = SERIAL)
+	public static void restoreSerial(ServerWorld world) {
+		restoreCompiled(world);
+		RedBits.CONFIG.parallel_circuits = previousParallel;
+	}
+
+	@AfterBatch(batchId = PARALLEL)
+	public static void restoreParallel(ServerWorld world) {
+		restoreCompiled(world);
+		RedBits.CONFIG.parallel_circuits = previousParallel;
+	}
+
+	@GameTest(templateName = Builds.PLATFORM, batchId = VANILLA, tickLimit = TICKS + 20)
+	public void inverterRingVanilla(TestContext context) {
+		inverterRing(context);
+	}
+
+	@GameTest(templateName = Builds.PLATFORM, batchId = COMPILED, tickLimit = TICKS + 20)
+	public void inverterRingCompiled(TestContext context) {
+		inverterRing(context);
+	}
+
+	@GameTest(templateName = Builds.PLATFORM, batchId = VANILLA, tickLimit = TICKS + 20)
+	public void zeroTickCounterVanilla(TestContext context) {
+		zeroTickCounter(context);
+	}
+
+	@GameTest(templateName = Builds.PLATFORM, batchId = COMPILED, tickLimit = TICKS + 20)
+	public void zeroTickCounterCompiled(TestContext context) {
+		zeroTickCounter(context);
+	}
+
+	@GameTest(templateName = Builds.PLATFORM, batchId = VANILLA, tickLimit = TICKS + 20)
+	public void mixedChainVanilla(TestContext context) {
+		mixedChain(context);
+	}
+
+	@GameTest(templateName = Builds.PLATFORM, batchId = COMPILED, tickLimit = TICKS + 20)
+	public void mixedChainCompiled(TestContext context) {
+		mixedChain(context);
+	}
+
+	@GameTest(templateName = Builds.PLATFORM, batchId = SERIAL, tickLimit = TICKS + 20)
+	public void sealedCountersSerial(TestContext context) {
+		sealedCounters(context);
+	}
+
+	@GameTest(templateName = Builds.PLATFORM, batchId = PARALLEL, tickLimit = TICKS + 20)
+	public void sealedCountersParallel(TestContext context) {
+		sealedCounters(context);
+	}
+
+	/**
+	 * A ring of 39 inverters, each side is its own cluster and the corners are redstone dust
+	 */
+	private static void inverterRing(TestContext context) {
+		Builds.floor(context, Blocks.STONE);
+
+		Builds.Ring ring = new Builds.Ring(new BlockPos(2, 1, 2));
+		ring.walk(Direction.EAST, 1, true);
+		ring.walk(Direction.EAST, 1, false);
+		ring.walk(Direction.EAST, 9, true);
+		ring.walk(Direction.SOUTH, 11, true);
+		ring.walk(Direction.WEST, 11, true);
+		ring.walk(Direction.NORTH, 11, true);
+		ring.build(context);
+
+		run(context, "inverter_ring", tick -> {});
+	}
+
+	/**
+	 * A chain of T flip-flops, its input gets a zero tick pulse (a redstone block placed
+	 * and removed right away) every seven ticks
+	 */
+	private static void zeroTickCounter(TestContext context) {
+		Builds.floor(context, Blocks.STONE);
+		BlockPos input = new BlockPos(2, 1, 2);
+
+		for (int x = 3; x <= 12; x ++) {
+			context.setBlockState(new BlockPos(x, 1, 2), Builds.gate(RedBits.T_FLIP_FLOP, Direction.EAST));
+		}
+
+		context.setBlockState(new BlockPos(13, 1, 2), Blocks.REDSTONE_LAMP.getDefaultState());
+
+		run(context, "zero_tick_counter", tick -> {
+			if (tick % 7 == 0) {
+				context.setBlockState(input, Blocks.REDSTONE_BLOCK.getDefaultState());
+				context.setBlockState(input, Blocks.AIR.getDefaultState());
+			}
+		});
+	}
+
+	/**
+	 * A timer driving a flip-flop chain and an inverter chain, joined by vanilla repeaters
+	 * that tick at the same time as the gates next to them
+	 */
+	private static void mixedChain(TestContext context) {
+		Builds.floor(context, Blocks.STONE);
+
+		context.setBlockState(new BlockPos(1, 1, 2), Blocks.REDSTONE_BLOCK.getDefaultState());
+		context.setBlockState(new BlockPos(2, 1, 2), Builds.gate(RedBits.TIMER, Direction.EAST));
+		context.setBlockState(new BlockPos(3, 1, 2), Builds.gate(Blocks.REPEATER, Direction.EAST));
+
+		for (int x = 4; x <= 12; x ++) {
+			context.setBlockState(new BlockPos(x, 1, 2), Builds.gate(RedBits.T_FLIP_FLOP, Direction.EAST));
+		}
+
+		context.setBlockState(new BlockPos(13, 1, 2), Builds.gate(Blocks.REPEATER, Direction.EAST));
+
+		for (int x = 14; x <= 21; x ++) {
+			context.setBlockState(new BlockPos(x, 1, 2), Builds.gate(RedBits.INVERTER, Direction.EAST));
+		}
+
+		context.setBlockState(new BlockPos(22, 1, 2), Blocks.REDSTONE_LAMP.getDefaultState());
+
+		run(context, "mixed_chain", tick -> {});
+	}
+
+	/**
+	 * Four sealed counters, each an inverter with nothing at its input driving a timer and a chain of T flip-flops
+	 * that outputs into air, so that they are stepped on the worker pool in the parallel mode. Next to them is
+	 * the inverter ring, its dust corners keep its clusters on the server thread.
+	 */
+	private static void sealedCounters(TestContext context) {
+		Builds.floor(context, Blocks.STONE);
+
+		for (int z = 2; z <= 14; z += 4) {
+			context.setBlockState(new BlockPos(2, 1, z), Builds.gate(RedBits.INVERTER, Direction.EAST));
+			context.setBlockState(new BlockPos(3, 1, z), Builds.gate(RedBits.TIMER, Direction.EAST).with(TimerBlock.DELAY, 1 + z % 3));
+
+			for (int x = 4; x <= 9 + z / 4; x ++) {
+				context.setBlockState(new BlockPos(x, 1, z), Builds.gate(RedBits.T_FLIP_FLOP, Direction.EAST));
+			}
+		}
+
+		Builds.Ring ring = new Builds.Ring(new BlockPos(2, 1, 20));
+		ring.walk(Direction.EAST, 1, true);
+		ring.walk(Direction.EAST, 1, false);
+		ring.walk(Direction.EAST, 9, true);
+		ring.walk(Direction.SOUTH, 11, true);
+		ring.walk(Direction.WEST, 11, true);
+		ring.walk(Direction.NORTH, 11, true);
+		ring.build(context);
+
+		run(context, "sealed_counters", tick -> {});
+	}
+
+	private static void run(TestContext context, String name, IntConsumer driver) {
+		Trace trace = new Trace();
+
+		for (int tick = 1; tick <= TICKS; tick ++) {
+			final int current = tick;
+
+			context.runAtTick(tick, () -> {
+				driver.accept(current);
+				trace.ticks[current - 1] = hash(context, false);
+
+				if (current == TICKS) {
+					finish(context, name, trace);
+				}
+			});
+		}
+	}
+
+	private static void finish(TestContext context, String name, Trace trace) {
+		BlockPos.Mutable pos = new BlockPos.Mutable();
+
+		// write the state of all compiled gates back into the world
+		for (int y = 0; y < Builds.HEIGHT; y ++) {
+			for (int z = 0; z < Builds.WIDTH; z ++) {
+				for (int x = 0; x < Builds.WIDTH; x ++) {
+					CircuitEngine.release(context.getWorld(), context.getAbsolutePos(pos.set(x, y, z)));
+				}
+			}
+		}
+
+		trace.end = hash(context, true);
+		Trace other = TRACES.remove(name);
+
+		if (other == null) {
+			TRACES.put(name, trace);
+			context.complete();
+			return;
+		}
+
+		for (int i = 0; i < TICKS; i ++) {
+			if (trace.ticks[i] != other.ticks[i]) {
+				context.throwGameTestException("Compiled and vanilla runs of '" + name + "' differ at tick " + (i + 1));
+			}
+		}
+
+		if (trace.end != other.end) {
+			context.throwGameTestException("Compiled and vanilla runs of '" + name + "' end with different gate states");
+		}
+
+		context.complete();
+	}
+
+	/**
+	 * Hashes the block states in the test area, with FNV-1a over the raw state ids,
+	 * compilable gates are skipped unless requested
+	 */
+	private static long hash(TestContext context, boolean gates) {
+		long hash = 0xcbf29ce484222325L;
+		BlockPos.Mutable pos = new BlockPos.Mutable();
+
+		for (int y = 0; y < Builds.HEIGHT; y ++) {
+			for (int z = 0; z < Builds.WIDTH; z ++) {
+				for (int x = 0; x < Builds.WIDTH; x ++) {
+					BlockState state = context.getBlockState(pos.set(x, y, z));
+
+					if (gates || GateKind.of(state) == null) {
+						hash = (hash ^ Block.getRawIdFromState(state)) * 0x100000001b3L;
+					}
+				}
+			}
+		}
+
+		return hash;
+	}
+
+	private static class Trace {
+
+		final long[] ticks = new long[TICKS];
+		long end;
+
+	}
+
+}
@@ -0,0 +1,185 @@
+package net.darktree.redbits.gametest.benchmark;
+
+import net.darktree.redbits.RedBits;
+import net.darktree.redbits.gametest.Builds;
+import net.darktree.redbits.profiler.ComponentProfiler;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.block.BlockState;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.test.TestContext;
+import net.minecraft.util.math.BlockPos;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.function.IntConsumer;
+
+/**
+ * Runs one benchmark build for a fixed number of ticks. The first half of the run measures
+ * the server tick time and the allocations of the server thread, the second half is profiled
+ * with the {@link ComponentProfiler} to count block updates, so that its hooks don't skew the timings.
+ * At the end the block states of the test area are hashed and compared with the committed golden snapshot, a run
+ * without a snapshot fails. With <code>-Dredbits.gametest.record=&lt;directory&gt;</code> the hashes are written to
+ * that directory instead of being checked, the runGametestBenchmarksRecord task records straight into the golden snapshots.
+ */
+final class BenchmarkRun {
+
+	private static final String REPORT = "circuit-benchmarks.csv";
+	private static final String GOLDEN = "/redbits-gametest/golden/";
+	private static final String RECORD = System.getProperty("redbits.gametest.record");
+
+	private final TestContext context;
+	private final String name;
+	private final int ticks;
+	private final int half;
+	private final IntConsumer driver;
+
+	private long tickNanos;
+	private long allocated;
+	private long updates = -1;
+	private boolean profiling;
+
+	private BenchmarkRun(TestContext context, String name, int ticks, IntConsumer driver) {
+		this.context = context;
+		this.name = name;
+		this.ticks = ticks;
+		this.half = ticks / 2;
+		this.driver = driver;
+	}
+
+	/**
+	 * Starts the run, the driver is called at every tick of the run with the tick number
+	 */
+	static void start(TestContext context, String name, int ticks, IntConsumer driver) {
+		BenchmarkRun run = new BenchmarkRun(context, name, ticks, driver);
+
+		for (int tick = 1; tick <= ticks; tick ++) {
+			final int current = tick;
+			context.runAtTick(tick, () -> run.tick(current));
+		}
+	}
+
+	private void tick(int tick) {
+		MinecraftServer server = context.getWorld().getServer();
+		driver.accept(tick);
+
+		if (tick == 1) {
+			allocated = getAllocatedBytes();
+		} else if (tick <= half) {
+			// length of the previous, fully finished, tick
+			tickNanos += server.lastTickLengths[(server.getTicks() - 1) % server.lastTickLengths.length];
+		}
+
+		if (tick == half) {
+			allocated = getAllocatedBytes() - allocated;
+			profiling = ComponentProfiler.start(server, null, ticks / 20 + 2);
+		}
+
+		if (tick == ticks) {
+			finish();
+		}
+	}
+
+	private void finish() {
+		if (profiling) {
+			updates = ComponentProfiler.getCount(ComponentProfiler.Kind.NEIGHBOR_UPDATE) + ComponentProfiler.getCount(ComponentProfiler.Kind.SET_BLOCK_STATE);
+			ComponentProfiler.stop();
+		}
+
+		int measured = half - 1;
+		double mspt = tickNanos / 1_000_000d / measured;
+		double perTick = updates < 0 ? -1 : updates / (double) (ticks - half);
+		double allocation = allocated / 1024d / measured;
+		String hash = hash();
+
+		RedBits.LOGGER.info("Benchmark '{}': {} mspt, {} block updates/tick, {} KiB allocated/tick", name, format(mspt), format(perTick), format(allocation));
+		report(mspt, perTick, allocation, hash);
+		verify(hash);
+
+		context.complete();
+	}
+
+	/**
+	 * Hashes all block states in the test area, with FNV-1a over the state strings
+	 */
+	private String hash() {
+		long hash = 0xcbf29ce484222325L;
+		BlockPos.Mutable pos = new BlockPos.Mutable();
+
+		for (int y = 0; y < Builds.HEIGHT; y ++) {
+			for (int z = 0; z < Builds.WIDTH; z ++) {
+				for (int x = 0; x < Builds.WIDTH; x ++) {
+					BlockState state = context.getBlockState(pos.set(x, y, z));
+					String string = state.toString();
+
+					for (int i = 0; i < string.length(); i ++) {
+						hash = (hash ^ string.charAt(i)) * 0x100000001b3L;
+					}
+				}
+			}
+		}
+
+		return Long.toHexString(hash);
+	}
+
+	private void verify(String hash) {
+		if (RECORD != null) {
+			Path path = Path.of(RECORD).resolve(name + ".txt");
+
+			try {
+				Files.createDirectories(path.getParent());
+				Files.writeString(path, hash + "\n");
+			} catch (IOException exception) {
+				throw new RuntimeException("Failed to record golden snapshot of '" + name + "'", exception);
+			}
+
+			RedBits.LOGGER.info("Recorded golden snapshot of '{}' in {}", name, path);
+			return;
+		}
+
+		String expected;
+
+		try (InputStream stream = BenchmarkRun.class.getResourceAsStream(GOLDEN + name + ".txt")) {
+			expected = stream == null ? null : new String(stream.readAllBytes(), StandardCharsets.UTF_8).trim();
+		} catch (IOException exception) {
+			throw new RuntimeException("Failed to read golden snapshot of '" + name + "'", exception);
+		}
+
+		if (expected == null) {
+			context.throwGameTestException("No golden snapshot for '" + name + "', record one with the runGametestBenchmarksRecord task");
+		}
+
+		if (!expected.equals(hash)) {
+			context.throwGameTestException("Final state of '" + name + "' differs from its golden snapshot, expected " + expected + " but got " + hash);
+		}
+	}
+
+	private void report(double mspt, double perTick, double allocation, String hash) {
+		Path path = FabricLoader.getInstance().getGameDir().resolve(REPORT);
+
+		try {
+			if (!Files.exists(path)) {
+				Files.writeString(path, "build,ticks,mspt,updates_per_tick,allocated_kib_per_tick,state_hash\n");
+			}
+
+			String line = String.join(",", name, String.valueOf(ticks), format(mspt), format(perTick), format(allocation), hash);
+			Files.writeString(path, line + "\n", StandardOpenOption.APPEND);
+		} catch (IOException exception) {
+			RedBits.LOGGER.error("Failed to write benchmark report", exception);
+		}
+	}
+
+	private static long getAllocatedBytes() {
+		return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+	}
+
+	private static String format(double value) {
+		return String.format(Locale.ROOT, "%.3f", value);
+	}
+
+}
@@ -0,0 +1,189 @@
+package net.darktree.redbits.gametest.benchmark;
+
+import net.darktree.redbits.RedBits;
+import net.darktree.redbits.blocks.LatchBlock;
+import net.darktree.redbits.blocks.TimerBlock;
+import net.darktree.redbits.blocks.VisionSensorBlock;
+import net.darktree.redbits.gametest.Builds;
+import net.darktree.redbits.utils.FacingDirection;
+import net.fabricmc.fabric.api.gametest.v1.FabricGameTest;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.entity.EntityType;
+import net.minecraft.entity.mob.HuskEntity;
+import net.minecraft.test.GameTest;
+import net.minecraft.test.TestContext;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.util.math.random.Random;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Large circuits built on an empty platform and run for a fixed number of ticks, see {@link BenchmarkRun}.
+ * The builds are placed from code with {@link Builds}. Each build is in its own batch so that they never run
+ * next to each other. The benchmarks are a separate mod, only loaded by the runGametestBenchmarks task.
+ */
+public class CircuitBenchmarks implements FabricGameTest {
+
+	/**
+	 * A ring of 945 inverters snaking across the platform, the odd count keeps it oscillating forever
+	 */
+	@GameTest(templateName = Builds.PLATFORM, batchId = "inverter_ring", tickLimit = 420)
+	public void inverterRing(TestContext context) {
+		Builds.floor(context, Blocks.STONE);
+
+		Builds.Ring ring = new Builds.Ring(new BlockPos(2, 1, 2));
+		ring.walk(Direction.EAST, 1, true);
+		ring.walk(Direction.EAST, 1, false);
+		ring.walk(Direction.SOUTH, 1, true);
+
+		for (int row = 0; row < 22; row ++) {
+			ring.walk(row % 2 == 0 ? Direction.EAST : Direction.WEST, 41, true);
+
+			if (row < 21) {
+				ring.walk(Direction.SOUTH, 2, true);
+			}
+		}
+
+		ring.walk(Direction.WEST, 2, true);
+		ring.walk(Direction.NORTH, 43, true);
+		ring.build(context);
+
+		BenchmarkRun.start(context, "inverter_ring", 400, tick -> {});
+	}
+
+	/**
+	 * Rows of T flip-flops chained into binary counters, each clocked by a timer
+	 */
+	@GameTest(templateName = Builds.PLATFORM, batchId = "flip_flop_counter", tickLimit = 420)
+	public void flipFlopCounter(TestContext context) {
+		Builds.floor(context, Blocks.STONE);
+
+		for (int z = 2; z <= 44; z += 2) {
+			context.setBlockState(new BlockPos(1, 1, z), Blocks.REDSTONE_BLOCK.getDefaultState());
+			context.setBlockState(new BlockPos(2, 1, z), Builds.gate(RedBits.TIMER, Direction.EAST).with(TimerBlock.DELAY, 1 + (z / 2) % 2));
+
+			for (int x = 3; x <= 44; x ++) {
+				context.setBlockState(new BlockPos(x, 1, z), Builds.gate(RedBits.T_FLIP_FLOP, Direction.EAST));
+			}
+		}
+
+		BenchmarkRun.start(context, "flip_flop_counter", 400, tick -> {});
+	}
+
+	/**
+	 * Rows of always powered timers with mixed delays, each driving a lamp
+	 */
+	@GameTest(templateName = Builds.PLATFORM, batchId = "timer_array", tickLimit = 420)
+	public void timerArray(TestContext context) {
+		Builds.floor(context, Blocks.STONE);
+
+		for (int row = 0; row < 11; row ++) {
+			int z = 1 + row * 4;
+
+			for (int x = 1; x <= 46; x ++) {
+				context.setBlockState(new BlockPos(x, 1, z), Blocks.REDSTONE_BLOCK.getDefaultState());
+				context.setBlockState(new BlockPos(x, 1, z + 1), Builds.gate(RedBits.TIMER, Direction.SOUTH).with(TimerBlock.DELAY, 1 + (x + row) % 4));
+				context.setBlockState(new BlockPos(x, 1, z + 2), Blocks.REDSTONE_LAMP.getDefaultState());
+			}
+		}
+
+		BenchmarkRun.start(context, "timer_array", 400, tick -> {});
+	}
+
+	/**
+	 * A bank of latches, each one set and reset by a pair of timers with different periods
+	 */
+	@GameTest(templateName = Builds.PLATFORM, batchId = "latch_memory", tickLimit = 420)
+	public void latchMemory(TestContext context) {
+		Builds.floor(context, Blocks.STONE);
+		BlockState latch = RedBits.LATCH.getDefaultState().with(LatchBlock.AXIS, Direction.Axis.X).with(LatchBlock.POWER, FacingDirection.FRONT);
+
+		for (int z = 1; z <= 45; z += 2) {
+			for (int cell = 0; cell < 7; cell ++) {
+				int x = 1 + cell * 6;
+				int delay = cell + z / 2;
+
+				context.setBlockState(new BlockPos(x, 1, z), Blocks.REDSTONE_BLOCK.getDefaultState());
+				context.setBlockState(new BlockPos(x + 1, 1, z), Builds.gate(RedBits.TIMER, Direction.EAST).with(TimerBlock.DELAY, 1 + delay % 4));
+				context.setBlockState(new BlockPos(x + 2, 1, z), latch);
+				context.setBlockState(new BlockPos(x + 3, 1, z), Builds.gate(RedBits.TIMER, Direction.WEST).with(TimerBlock.DELAY, 1 + (delay + 1) % 4));
+				context.setBlockState(new BlockPos(x + 4, 1, z), Blocks.REDSTONE_BLOCK.getDefaultState());
+			}
+		}
+
+		BenchmarkRun.start(context, "latch_memory", 400, tick -> {});
+	}
+
+	/**
+	 * A wall of vision sensors with lamps behind it, a group of simulated players
+	 * looks at a new random sensor every tick
+	 */
+	@GameTest(templateName = Builds.PLATFORM, batchId = "vision_sensor_wall", tickLimit = 220)
+	public void visionSensorWall(TestContext context) {
+		Builds.floor(context, Blocks.STONE);
+		List<BlockPos> sensors = new ArrayList<>();
+
+		for (int y = 1; y <= 4; y ++) {
+			for (int x = 4; x <= 43; x ++) {
+				BlockPos pos = new BlockPos(x, y, 24);
+				context.setBlockState(pos, RedBits.VISION_SENSOR.getDefaultState());
+				context.setBlockState(pos.south(), Blocks.REDSTONE_LAMP.getDefaultState());
+				sensors.add(pos);
+			}
+		}
+
+		// a fixed seed keeps the final state reproducible
+		Random random = Random.create(24);
+		int players = 12;
+
+		BenchmarkRun.start(context, "vision_sensor_wall", 200, tick -> {
+			for (int i = 0; i < players; i ++) {
+				VisionSensorBlock.trigger(context.getWorld(), context.getAbsolutePos(sensors.get(random.nextInt(sensors.size()))));
+			}
+		});
+	}
+
+	/**
+	 * A field of crying obsidian pressure plates over lamps, with husks
+	 * moved to other plates every half a second, like a crowded mob farm
+	 */
+	@GameTest(templateName = Builds.PLATFORM, batchId = "plate_mob_farm", tickLimit = 420)
+	public void plateMobFarm(TestContext context) {
+		Builds.floor(context, Blocks.STONE);
+		List<BlockPos> plates = new ArrayList<>();
+
+		for (int z = 2; z <= 40; z += 2) {
+			for (int x = 2; x <= 40; x += 2) {
+				BlockPos pos = new BlockPos(x, 1, z);
+				context.setBlockState(pos.down(), Blocks.REDSTONE_LAMP.getDefaultState());
+				context.setBlockState(pos, RedBits.CRYING_OBSIDIAN_PRESSURE_PLATE.getDefaultState());
+				plates.add(pos);
+			}
+		}
+
+		List<HuskEntity> husks = new ArrayList<>();
+
+		for (int i = 0; i < 120; i ++) {
+			HuskEntity husk = context.spawnMob(EntityType.HUSK, plates.get(i * 3));
+			husk.setAiDisabled(true);
+			husk.setPersistent();
+			husks.add(husk);
+		}
+
+		BenchmarkRun.start(context, "plate_mob_farm", 400, tick -> {
+			if (tick % 10 != 0) {
+				return;
+			}
+
+			for (int i = 0; i < husks.size(); i ++) {
+				BlockPos pos = context.getAbsolutePos(plates.get((i * 37 + tick / 10 * 11) % plates.size()));
+				husks.get(i).refreshPositionAndAngles(pos.getX() + 0.5, pos.getY(), pos.getZ() + 0.5, 0, 0);
+			}
+		});
+	}
+
+}
@@ -5,16 +5,34 @@ import me.shedaniel.autoconfig.serializer.GsonConfigSerializer;
 import net.darktree.interference.LootInjector;
 import net.darktree.redbits.blocks.*;
 import net.darktree.redbits.blocks.ComplexPressurePlateBlock.CollisionCondition;
+import net.darktree.redbits.circuit.CircuitEngine;
+import net.darktree.redbits.command.RedBitsCommand;
 import net.darktree.redbits.config.Settings;
+import net.darktree.redbits.display.Framebuffers;
 import net.darktree.redbits.entity.EmitterMinecartEntity;
 import net.darktree.redbits.network.C2SLookAtPacket;
+import net.darktree.redbits.profiler.ComponentProfiler;
+import net.darktree.redbits.utils.BurnoutTracker;
+import net.darktree.redbits.utils.CampfireRecipeCache;
+import net.darktree.redbits.utils.CampfireStorage;
+import net.darktree.redbits.utils.CartPower;
+import net.darktree.redbits.utils.GateTickQueue;
+import net.darktree.redbits.utils.HopperAdapterCache;
+import net.darktree.redbits.utils.JukeboxEvents;
+import net.darktree.redbits.utils.JukeboxStorage;
+import net.darktree.redbits.utils.OscillationGuard;
+import net.darktree.redbits.utils.PowerCache;
+import net.darktree.redbits.utils.SensorIndex;
+import net.darktree.redbits.utils.TimerWheel;
 import net.fabricmc.api.ModInitializer;
 import net.fabricmc.fabric.api.itemgroup.v1.ItemGroupEvents;
 import net.fabricmc.fabric.api.object.builder.v1.block.FabricBlockSettings;
+import net.fabricmc.fabric.api.object.builder.v1.block.entity.FabricBlockEntityTypeBuilder;
 import net.fabricmc.fabric.api.object.builder.v1.entity.FabricEntityTypeBuilder;
 import net.fabricmc.fabric.api.object.builder.v1.entity.MinecartComparatorLogicRegistry;
 import net.fabricmc.loader.api.FabricLoader;
 import net.minecraft.block.*;
+import net.minecraft.block.entity.BlockEntityType;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.EntityDimensions;
 import net.minecraft.entity.EntityType;
@@ -47,10 +65,12 @@ import java.util.function.Predicate;
 public class RedBits implements ModInitializer {
 
 	public static final Logger LOGGER = LoggerFactory.getLogger("RedBits");
-	public static final Settings CONFIG = AutoConfig.register(Settings.class, GsonConfigSerializer::new).getConfig();
 	public static final Item.Settings SETTINGS = new Item.Settings();
 	public static final String NAMESPACE = "redbits";
 
+	// defaults until the mod is initialized, then the stored settings, benchmarks can replace it
+	public static Settings CONFIG = new Settings();
+
 	private final static List<ItemStack> lamps = new ArrayList<>();
 	private final static List<ItemStack> torches = new ArrayList<>();
 	private final static List<ItemStack> carts = new ArrayList<>();
@@ -60,10 +80,10 @@ public class RedBits implements ModInitializer {
 	private final static List<ItemStack> buttons = new ArrayList<>();
 
 	private final static Predicate<Entity> CANT_AVOID_TRAPS = n -> !n.canAvoidTraps();
-	public final static CollisionCondition COLLISION_CONDITION_PET = (world, box) -> world.getNonSpectatingEntities(TameableEntity.class, box).stream().anyMatch(n -> n.isTamed() && !n.canAvoidTraps());
-	public final static CollisionCondition COLLISION_CONDITION_PLAYERS = (world, box) -> world.getNonSpectatingEntities(PlayerEntity.class, box).stream().anyMatch(CANT_AVOID_TRAPS);
-	public final static CollisionCondition COLLISION_CONDITION_HOSTILE = (world, box) -> world.getNonSpectatingEntities(HostileEntity.class, box).stream().anyMatch(CANT_AVOID_TRAPS);
-	public final static CollisionCondition COLLISION_CONDITION_VILLAGER = (world, box) -> world.getNonSpectatingEntities(VillagerEntity.class, box).stream().anyMatch(CANT_AVOID_TRAPS);
+	public final static CollisionCondition COLLISION_CONDITION_PET = CollisionCondition.of(TameableEntity.class, n -> n.isTamed() && !n.canAvoidTraps());
+	public final static CollisionCondition COLLISION_CONDITION_PLAYERS = CollisionCondition.of(PlayerEntity.class, CANT_AVOID_TRAPS);
+	public final static CollisionCondition COLLISION_CONDITION_HOSTILE = CollisionCondition.of(HostileEntity.class, CANT_AVOID_TRAPS);
+	public final static CollisionCondition COLLISION_CONDITION_VILLAGER = CollisionCondition.of(VillagerEntity.class, CANT_AVOID_TRAPS);
 
 	// Buttons
 	public final static Block OAK_LARGE_BUTTON = new LargeButtonBlock(true, AbstractBlock.Settings.of(Material.DECORATION).noCollision().strength(0.5F).sounds(BlockSoundGroup.WOOD));
@@ -85,6 +105,7 @@ public class RedBits implements ModInitializer {
 	public final static Block TWO_WAY_REPEATER = new TwoWayRepeaterBlock(AbstractBlock.Settings.of(Material.DECORATION).breakInstantly().sounds(BlockSoundGroup.WOOD));
 	public final static Block LATCH = new LatchBlock(AbstractBlock.Settings.of(Material.DECORATION).breakInstantly().sounds(BlockSoundGroup.WOOD));
 	public final static Block TIMER = new TimerBlock(AbstractBlock.Settings.of(Material.DECORATION).breakInstantly().sounds(BlockSoundGroup.WOOD));
+	public final static Block LONG_TIMER = new LongTimerBlock(AbstractBlock.Settings.of(Material.DECORATION).breakInstantly().sounds(BlockSoundGroup.WOOD));
 
 	// Pressure Plates
 	public final static Block OBSIDIAN_PRESSURE_PLATE = new ComplexPressurePlateBlock( COLLISION_CONDITION_PLAYERS, AbstractBlock.Settings.of(Material.STONE, MapColor.BLACK).requiresTool().noCollision().strength(0.5F) );
@@ -111,11 +132,67 @@ public class RedBits implements ModInitializer {
 			.dimensions(EntityDimensions.fixed(0.98f, 0.7f))
 			.build();
 
+	// Block Entities
+	public static final BlockEntityType<LongTimerBlockEntity> LONG_TIMER_BLOCK_ENTITY = FabricBlockEntityTypeBuilder.create(LongTimerBlockEntity::new, LONG_TIMER).build();
+
 	// Network
 	public static final C2SLookAtPacket LOOK_AT_PACKET = new C2SLookAtPacket(new Identifier(NAMESPACE, "look_at"));
 
 	@Override
 	public void onInitialize() {
+		CONFIG = AutoConfig.register(Settings.class, GsonConfigSerializer::new).getConfig();
+		registerContent();
+
+		// Register statistics
+		registerStat(INTERACT_WITH_SIGHT_SENSOR);
+		registerStat(INTERACT_WITH_REDSTONE_EMITTER);
+
+		// Register custom minecart
+		MinecartComparatorLogicRegistry.register(EMITTER_MINECART, (minecart, state, pos) -> minecart.getPower());
+		CartPower.register();
+
+		// Register block entities
+		LongTimerBlock.register();
+
+		// Network
+		LOOK_AT_PACKET.register();
+		SensorIndex.register();
+
+		// Redstone power memo and torch burnout
+		PowerCache.register();
+		BurnoutTracker.register();
+		OscillationGuard.register();
+
+		// Hopper and transfer api integration
+		HopperAdapterCache.register();
+		JukeboxStorage.register();
+		JukeboxEvents.register();
+		CampfireStorage.register();
+		CampfireRecipeCache.register();
+
+		// Timers and compiled circuits, the wheel has to tick first
+		TimerWheel.register();
+		GateTickQueue.register();
+		CircuitEngine.register();
+
+		// Commands, displays and profiling
+		Framebuffers.register();
+		ComponentProfiler.register();
+		RedBitsCommand.register();
+
+		// Check is Patchouli is present in the mod list
+		if (FabricLoader.getInstance().isModLoaded("patchouli")) {
+			initializePatchouliCompatibility();
+		}
+
+		appendItemsToGroup();
+	}
+
+	/**
+	 * Registers all blocks, items, the minecart entity and the block entity. Split from the rest of the
+	 * initializer so that it can also run without Fabric Loader, before the registries are frozen (see the benchmarks)
+	 */
+	public static void registerContent() {
 		registerBlock("inverted_redstone_torch", INVERTED_REDSTONE_TORCH);
 		registerBlock("inverted_redstone_wall_torch", INVERTED_REDSTONE_WALL_TORCH);
 		registerItem("inverted_redstone_torch", new VerticallyAttachableBlockItem(INVERTED_REDSTONE_TORCH, INVERTED_REDSTONE_WALL_TORCH, SETTINGS, Direction.DOWN), torches);
@@ -127,6 +204,7 @@ public class RedBits implements ModInitializer {
 		register("detector", DETECTOR, gates);
 		register("latch", LATCH, gates);
 		register("timer", TIMER, gates);
+		register("long_timer", LONG_TIMER, gates);
 
 		register("emitter", REDSTONE_EMITTER, cubes);
 		register("vision_sensor", VISION_SENSOR, cubes);
@@ -151,23 +229,8 @@ public class RedBits implements ModInitializer {
 		register("redstone_lamp", REDSTONE_LAMP, lamps);
 		register("rgb_lamp", RGB_LAMP, lamps);
 
-		// Register statistics
-		registerStat(INTERACT_WITH_SIGHT_SENSOR);
-		registerStat(INTERACT_WITH_REDSTONE_EMITTER);
-
-		// Register custom minecart
 		Registry.register(Registries.ENTITY_TYPE, new Identifier(NAMESPACE, "emitter_minecart"), EMITTER_MINECART);
-		MinecartComparatorLogicRegistry.register(EMITTER_MINECART, (minecart, state, pos) -> minecart.getPower());
-
-		// Network
-		LOOK_AT_PACKET.register();
-
-		// Check is Patchouli is present in the mod list
-		if (FabricLoader.getInstance().isModLoaded("patchouli")) {
-			initializePatchouliCompatibility();
-		}
-
-		appendItemsToGroup();
+		Registry.register(Registries.BLOCK_ENTITY_TYPE, new Identifier(NAMESPACE, "long_timer"), LONG_TIMER_BLOCK_ENTITY);
 	}
 
 	private void initializePatchouliCompatibility() {
@@ -187,16 +250,16 @@ public class RedBits implements ModInitializer {
 		}
 	}
 
-	private void registerBlock(String name, Block block) {
+	private static void registerBlock(String name, Block block) {
 		Registry.register(Registries.BLOCK, new Identifier(NAMESPACE, name), block);
 	}
 
-	private void registerItem(String name, Item item, List<ItemStack> group) {
+	private static void registerItem(String name, Item item, List<ItemStack> group) {
 		group.add(new ItemStack(item));
 		Registry.register(Registries.ITEM, new Identifier(NAMESPACE, name), item);
 	}
 
-	private void register(String name, Block block, List<ItemStack> group) {
+	private static void register(String name, Block block, List<ItemStack> group) {
 		registerBlock(name, block);
 		registerItem(name, new BlockItem(block, SETTINGS), group);
 	}
@@ -3,11 +3,14 @@ package net.darktree.redbits;
 import net.darktree.interference.MessageInjector;
 import net.darktree.redbits.blocks.AnalogLampBlock;
 import net.darktree.redbits.blocks.EmitterBlock;
+import net.darktree.redbits.client.RebuildBenchmark;
 import net.darktree.redbits.utils.ColorProvider;
 import net.fabricmc.api.ClientModInitializer;
 import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
 import net.fabricmc.fabric.api.blockrenderlayer.v1.BlockRenderLayerMap;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayConnectionEvents;
 import net.fabricmc.fabric.api.client.rendering.v1.ColorProviderRegistry;
 import net.fabricmc.fabric.api.client.rendering.v1.EntityRendererRegistry;
 import net.minecraft.block.Block;
@@ -28,6 +31,7 @@ public class RedBitsClient implements ClientModInitializer {
 		cutout(RedBits.INVERTED_REDSTONE_TORCH);
 		cutout(RedBits.INVERTED_REDSTONE_WALL_TORCH);
 		cutout(RedBits.TIMER);
+		cutout(RedBits.LONG_TIMER);
 		ColorProviderRegistry.ITEM.register((stack, tintIndex) -> RedstoneWireBlock.getWireColor(1), RedBits.REDSTONE_EMITTER);
 		ColorProviderRegistry.BLOCK.register((state, view, pos, tintIndex) -> RedstoneWireBlock.getWireColor( state.get( EmitterBlock.POWER ) ), RedBits.REDSTONE_EMITTER);
 		ColorProviderRegistry.ITEM.register((stack, tintIndex) -> ColorProvider.getColor(0), RedBits.RGB_LAMP);
@@ -36,6 +40,13 @@ public class RedBitsClient implements ClientModInitializer {
 		// minecart renderer
 		EntityRendererRegistry.register(RedBits.EMITTER_MINECART, ctx -> new MinecartEntityRenderer(ctx, EntityModelLayers.TNT_MINECART));
 
+		// send all vision sensor events from this tick in one packet
+		ClientTickEvents.END_CLIENT_TICK.register(client -> RedBits.LOOK_AT_PACKET.flush());
+		ClientPlayConnectionEvents.DISCONNECT.register((handler, client) -> RedBits.LOOK_AT_PACKET.clear());
+
+		// chunk rebuild benchmark scene
+		RebuildBenchmark.register();
+
 		// nothing to see here
 		MessageInjector.inject("SSdtIHRoZSBtYW4gd2hvIGFycmFuZ2VzIHRoZSBibG9ja3Mh");
 		MessageInjector.inject("UGlyYWN5IGlzIGFsbCBhYm91dCBicmFuZGluZyE=");
@@ -1,10 +1,14 @@
 package net.darktree.redbits.blocks;
 
 import net.darktree.interference.api.RedstoneConnectable;
+import net.darktree.redbits.profiler.GateTickEvent;
+import net.darktree.redbits.utils.GateUpdates;
 import net.minecraft.block.*;
 import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Direction;
+import net.minecraft.util.math.random.Random;
 import net.minecraft.util.shape.VoxelShape;
 import net.minecraft.world.BlockView;
 import net.minecraft.world.World;
@@ -13,6 +17,7 @@ import net.minecraft.world.WorldView;
 public abstract class AbstractRedstoneGate extends Block implements RedstoneConnectable {
 
     public static final VoxelShape SHAPE = Block.createCuboidShape(0.0D, 0.0D, 0.0D, 16.0D, 2.0D, 16.0D);
+    private static final Direction[] DIRECTIONS = Direction.values();
 
     public AbstractRedstoneGate(Settings settings) {
         super(settings);
@@ -22,6 +27,12 @@ public abstract class AbstractRedstoneGate extends Block implements RedstoneConn
 
     protected abstract void updatePowered(World world, BlockPos pos, BlockState state);
 
+    /**
+     * The actual scheduled tick logic of the gate
+     */
+    protected void onScheduledTick(BlockState state, ServerWorld world, BlockPos pos, Random random) {
+    }
+
     protected int getUpdateDelayInternal() {
         return 2;
     }
@@ -36,6 +47,16 @@ public abstract class AbstractRedstoneGate extends Block implements RedstoneConn
         }
     }
 
+    @Override
+    public void scheduledTick(BlockState state, ServerWorld world, BlockPos pos, Random random) {
+        GateTickEvent event = GateTickEvent.start();
+        onScheduledTick(state, world, pos, random);
+
+        if (event != null) {
+            event.end(pos, this);
+        }
+    }
+
     @Override
     public VoxelShape getOutlineShape(BlockState state, BlockView world, BlockPos pos, ShapeContext context) {
         return SHAPE;
@@ -61,9 +82,32 @@ public abstract class AbstractRedstoneGate extends Block implements RedstoneConn
         return true;
     }
 
+    /**
+     * Notifies the block on the given side of the gate and its neighbours
+     */
+    protected void updateSide(World world, BlockPos pos, Direction side) {
+        BlockPos target = pos.offset(side);
+        world.updateNeighbor(target, this, pos);
+        world.updateNeighborsExcept(target, this, side);
+    }
+
+    /**
+     * Called instead of {@link #updateTarget(World, BlockPos, BlockState)} after a state change when
+     * the minimal gate updates are enabled, by default all targets are updated if any output changed
+     */
+    protected void updateChangedTargets(World world, BlockPos pos, BlockState oldState, BlockState state) {
+        if (!GateUpdates.canSkip(world, pos, oldState, state)) {
+            this.updateTarget(world, pos, state);
+        }
+    }
+
     @Override
     public void onBlockAdded(BlockState state, World world, BlockPos pos, BlockState oldState, boolean notify) {
-        this.updateTarget(world, pos, state);
+        if (GateUpdates.isEnabled() && oldState.isOf(this)) {
+            this.updateChangedTargets(world, pos, oldState, state);
+        } else {
+            this.updateTarget(world, pos, state);
+        }
     }
 
     @Override
@@ -76,13 +120,16 @@ public abstract class AbstractRedstoneGate extends Block implements RedstoneConn
 
     @Override
     public void neighborUpdate(BlockState state, World world, BlockPos pos, Block block, BlockPos fromPos, boolean notify) {
-        if (state.canPlaceAt(world, pos)) {
+        // only the block below can make the gate unplaceable
+        boolean below = fromPos.getX() == pos.getX() && fromPos.getY() == pos.getY() - 1 && fromPos.getZ() == pos.getZ();
+
+        if (!below || state.canPlaceAt(world, pos)) {
             this.updatePowered(world, pos, state);
         } else {
             BlockEntity blockEntity = world.getBlockEntity(pos);
             dropStacks(state, world, pos, blockEntity);
             world.removeBlock(pos, false);
-            for (Direction direction : Direction.values()) {
+            for (Direction direction : DIRECTIONS) {
                 world.updateNeighborsAlways(pos.offset(direction), this);
             }
         }
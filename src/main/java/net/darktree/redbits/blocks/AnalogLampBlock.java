@@ -1,6 +1,8 @@
 package net.darktree.redbits.blocks;
 
+import net.darktree.redbits.display.Framebuffers;
 import net.darktree.redbits.utils.ColorProperty;
+import net.darktree.redbits.utils.PowerCache;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.item.ItemPlacementContext;
@@ -25,8 +27,8 @@ public class AnalogLampBlock extends Block {
 
     @Override
     public void neighborUpdate(BlockState state, World world, BlockPos pos, Block block, BlockPos fromPos, boolean notify) {
-        if (!world.isClient) {
-            int power = world.getReceivedRedstonePower(pos);
+        if (!world.isClient && !Framebuffers.isBound(world, pos)) {
+            int power = PowerCache.getReceivedPower(world, pos);
 
             if (state.get(POWER) != power) {
                 world.setBlockState(pos, state.with(POWER, power), 2);
@@ -36,7 +38,11 @@ public class AnalogLampBlock extends Block {
 
     @Override
     public void scheduledTick(BlockState state, ServerWorld world, BlockPos pos, Random random) {
-        int power = world.getReceivedRedstonePower(pos);
+        if (Framebuffers.isBound(world, pos)) {
+            return;
+        }
+
+        int power = PowerCache.getReceivedPower(world, pos);
 
         if (state.get(POWER) != power) {
             world.setBlockState(pos, state.with(POWER, power), 2);
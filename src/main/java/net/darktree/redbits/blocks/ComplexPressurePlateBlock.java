@@ -1,25 +1,98 @@
 package net.darktree.redbits.blocks;
 
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import net.darktree.redbits.profiler.PressurePlateQueryEvent;
+import net.darktree.redbits.utils.OccupancyIndex;
+import net.minecraft.block.BlockState;
 import net.minecraft.block.PressurePlateBlock;
 import net.minecraft.client.item.TooltipContext;
+import net.minecraft.entity.Entity;
 import net.minecraft.item.ItemStack;
 import net.minecraft.sound.SoundEvents;
 import net.minecraft.text.Text;
 import net.minecraft.util.Formatting;
+import net.minecraft.util.TypeFilter;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Box;
 import net.minecraft.world.BlockView;
 import net.minecraft.world.World;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Predicate;
 
 public class ComplexPressurePlateBlock extends PressurePlateBlock {
 
     public interface CollisionCondition {
         boolean call(World world, Box box);
+
+        /**
+         * Quick check if the given entity can ever trigger this condition
+         */
+        default boolean accepts(Entity entity) {
+            return true;
+        }
+
+        /**
+         * Checks if the given accepted entity alone triggers this condition inside the box,
+         * by default this runs the full query
+         */
+        default boolean matches(Entity entity, Box box) {
+            return call(entity.world, box);
+        }
+
+        /**
+         * Quick check if there can be any entity that triggers this condition near the given box,
+         * if this returns false the full query is skipped
+         */
+        default boolean mayMatch(World world, Box box) {
+            return true;
+        }
+
+        /**
+         * Creates a condition that is met when at least one non-spectating entity of the given class
+         * that matches the predicate is inside the box, the entity sections are walked only until
+         * the first match is found and no lists or streams are allocated. If the class is tracked by the
+         * {@link OccupancyIndex} sections with no such entities are skipped without a query.
+         * Conditions are not thread safe, they are meant to be used on the server thread.
+         */
+        static <T extends Entity> CollisionCondition of(Class<T> clazz, Predicate<? super T> predicate) {
+            final TypeFilter<Entity, T> filter = TypeFilter.instanceOf(clazz);
+            final Predicate<T> test = entity -> !entity.isSpectator() && predicate.test(entity);
+            final List<T> buffer = new ArrayList<>(1);
+            final OccupancyIndex.Category category = OccupancyIndex.Category.byClass(clazz);
+
+            return new CollisionCondition() {
+                @Override
+                public boolean call(World world, Box box) {
+                    world.collectEntitiesByType(filter, box, test, buffer, 1);
+                    boolean found = !buffer.isEmpty();
+                    buffer.clear();
+                    return found;
+                }
+
+                @Override
+                public boolean accepts(Entity entity) {
+                    return clazz.isInstance(entity);
+                }
+
+                @Override
+                public boolean matches(Entity entity, Box box) {
+                    return clazz.isInstance(entity) && test.test(clazz.cast(entity)) && entity.getBoundingBox().intersects(box);
+                }
+
+                @Override
+                public boolean mayMatch(World world, Box box) {
+                    return category == null || OccupancyIndex.isOccupied(world, box, category);
+                }
+            };
+        }
     }
 
     private final CollisionCondition collisionCondition;
+    private final Map<World, TickMemo> memos = new WeakHashMap<>();
 
     public ComplexPressurePlateBlock(CollisionCondition condition, Settings settings) {
         super(null, settings, SoundEvents.BLOCK_STONE_PRESSURE_PLATE_CLICK_OFF, SoundEvents.BLOCK_STONE_PRESSURE_PLATE_CLICK_ON);
@@ -28,11 +101,80 @@ public class ComplexPressurePlateBlock extends PressurePlateBlock {
 
     @Override
     protected int getRedstoneOutput(World world, BlockPos pos) {
-        return collisionCondition.call(world, BOX.offset(pos)) ? 15 : 0;
+        TickMemo memo = memos.computeIfAbsent(world, key -> new TickMemo());
+        long key = pos.asLong();
+        int output = memo.get(world.getTime(), key);
+
+        if (output == TickMemo.UNKNOWN) {
+            PressurePlateQueryEvent event = PressurePlateQueryEvent.start();
+
+            Box box = BOX.offset(pos);
+            output = collisionCondition.mayMatch(world, box) && collisionCondition.call(world, box) ? 15 : 0;
+            memo.put(world.getTime(), key, output);
+
+            if (event != null) {
+                event.end(pos, this);
+            }
+        }
+
+        return output;
+    }
+
+    @Override
+    public void onEntityCollision(BlockState state, World world, BlockPos pos, Entity entity) {
+        // entities that can never press this plate don't cause a re-check, and a pressed plate
+        // only re-checks on its own scheduled tick, same as the vanilla plates
+        if (collisionCondition.accepts(entity) && !world.isClient && getRedstoneOutput(state) == 0) {
+
+            // the entity may have moved onto the plate after its output was memoized in this tick, if it presses
+            // the plate the output is known without a query, if not it has no effect on the memoized output
+            if (collisionCondition.matches(entity, BOX.offset(pos))) {
+                memos.computeIfAbsent(world, key -> new TickMemo()).put(world.getTime(), pos.asLong(), 15);
+            }
+
+            super.onEntityCollision(state, world, pos, entity);
+        }
     }
 
     @Override
     public void appendTooltip(ItemStack stack, BlockView world, List<Text> tooltip, TooltipContext options) {
         tooltip.add(Text.translatable(this.getTranslationKey() + ".tooltip").formatted(Formatting.GRAY));
     }
+
+    /**
+     * Remembers the output of every plate checked during the current tick, so that repeated checks
+     * of the same plate cause only one query, entities pressing the plate set its entry directly
+     */
+    static class TickMemo {
+
+        static final int UNKNOWN = -1;
+
+        private final Long2IntOpenHashMap outputs = new Long2IntOpenHashMap();
+        private long time = Long.MIN_VALUE;
+
+        TickMemo() {
+            outputs.defaultReturnValue(UNKNOWN);
+        }
+
+        int get(long time, long pos) {
+            if (this.time != time) {
+                this.time = time;
+                outputs.clear();
+                return UNKNOWN;
+            }
+
+            return outputs.get(pos);
+        }
+
+        void put(long time, long pos, int output) {
+            if (this.time != time) {
+                this.time = time;
+                outputs.clear();
+            }
+
+            outputs.put(pos, output);
+        }
+
+    }
+
 }
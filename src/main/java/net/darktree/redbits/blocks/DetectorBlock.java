@@ -1,5 +1,8 @@
 package net.darktree.redbits.blocks;
 
+import net.darktree.redbits.circuit.CircuitEngine;
+import net.darktree.redbits.utils.GateTickQueue;
+import net.darktree.redbits.utils.OscillationGuard;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.entity.player.PlayerEntity;
@@ -34,6 +37,8 @@ public class DetectorBlock extends FlipFlopBlock {
     @Override
     public ActionResult onUse(BlockState state, World world, BlockPos pos, PlayerEntity player, Hand hand, BlockHitResult hit) {
         if( player == null || player.getAbilities().allowModifyWorld ) {
+            CircuitEngine.release(world, pos);
+            state = world.getBlockState(pos);
             world.setBlockState( pos, state.with( INVERTED, !state.get(INVERTED)) );
             world.playSound( null, pos, SoundEvents.BLOCK_COMPARATOR_CLICK, SoundCategory.BLOCKS, 1.0f, 0.7f );
             return ActionResult.SUCCESS;
@@ -42,7 +47,10 @@ public class DetectorBlock extends FlipFlopBlock {
     }
 
     @Override
-    public void scheduledTick(BlockState state, ServerWorld world, BlockPos pos, Random random) {
+    protected void onScheduledTick(BlockState state, ServerWorld world, BlockPos pos, Random random) {
+        if (OscillationGuard.intercept(world, pos, this) || CircuitEngine.interceptTick(world, pos)) {
+            return;
+        }
 
         boolean input = state.get(INPUT);
         boolean block = this.hasPower(world, pos, state);
@@ -56,7 +64,7 @@ public class DetectorBlock extends FlipFlopBlock {
             return;
         }
 
-        world.scheduleBlockTick(pos, this, this.getUpdateDelayInternal(state), TickPriority.VERY_HIGH);
+        GateTickQueue.schedule(world, pos, this, this.getUpdateDelayInternal(state), TickPriority.VERY_HIGH);
     }
 
 }
@@ -1,6 +1,7 @@
 package net.darktree.redbits.blocks;
 
 import net.darktree.redbits.RedBits;
+import net.darktree.redbits.utils.PowerCache;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.entity.player.PlayerEntity;
@@ -59,7 +60,7 @@ public class EmitterBlock extends Block {
 
     @Override
     public int getComparatorOutput(BlockState state, World world, BlockPos pos) {
-        return Math.max( state.get(POWER), world.getReceivedRedstonePower( pos ) );
+        return Math.max( state.get(POWER), PowerCache.getReceivedPower( world, pos ) );
     }
 
     @Override
@@ -1,6 +1,11 @@
 package net.darktree.redbits.blocks;
 
 import net.darktree.interference.api.RedstoneConnectable;
+import net.darktree.redbits.circuit.CircuitEngine;
+import net.darktree.redbits.profiler.GateTickEvent;
+import net.darktree.redbits.utils.GateTickQueue;
+import net.darktree.redbits.utils.GateUpdates;
+import net.darktree.redbits.utils.OscillationGuard;
 import net.minecraft.block.AbstractRedstoneGateBlock;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
@@ -43,6 +48,8 @@ public class FlipFlopBlock extends AbstractRedstoneGateBlock implements Redstone
     @Override
     public ActionResult onUse(BlockState state, World world, BlockPos pos, PlayerEntity player, Hand hand, BlockHitResult hit) {
         if( player == null || player.getAbilities().allowModifyWorld ) {
+            CircuitEngine.release(world, pos);
+            state = world.getBlockState(pos);
             world.setBlockState( pos, state.with( POWERED, !state.get(POWERED)) );
             world.playSound( null, pos, SoundEvents.BLOCK_COMPARATOR_CLICK, SoundCategory.BLOCKS, 1.0f, 0.7f );
             return ActionResult.SUCCESS;
@@ -64,12 +71,24 @@ public class FlipFlopBlock extends AbstractRedstoneGateBlock implements Redstone
         }
     }
 
+    @Override
+    public void onBlockAdded(BlockState state, World world, BlockPos pos, BlockState oldState, boolean notify) {
+        // state changes that don't change the output don't need to notify the target
+        if (!GateUpdates.canSkip(world, pos, oldState, state)) {
+            super.onBlockAdded(state, world, pos, oldState, notify);
+        }
+    }
+
     @Override
     protected void updatePowered(World world, BlockPos pos, BlockState state) {
+        if (CircuitEngine.interceptUpdate(world, pos)) {
+            return;
+        }
+
         boolean power = state.get(INPUT);
         boolean block = this.hasPower(world, pos, state);
 
-        if (power != block && !world.getBlockTickScheduler().isTicking(pos, this)) {
+        if (power != block && !GateTickQueue.isTicking(world, pos, this)) {
             TickPriority tickPriority = TickPriority.HIGH;
             if (this.isTargetNotAligned(world, pos, state)) {
                 tickPriority = TickPriority.EXTREMELY_HIGH;
@@ -77,12 +96,28 @@ public class FlipFlopBlock extends AbstractRedstoneGateBlock implements Redstone
                 tickPriority = TickPriority.VERY_HIGH;
             }
 
-            world.scheduleBlockTick(pos, this, this.getUpdateDelayInternal(state), tickPriority);
+            GateTickQueue.schedule(world, pos, this, this.getUpdateDelayInternal(state), tickPriority);
         }
     }
 
     @Override
     public void scheduledTick(BlockState state, ServerWorld world, BlockPos pos, Random random) {
+        GateTickEvent event = GateTickEvent.start();
+        onScheduledTick(state, world, pos, random);
+
+        if (event != null) {
+            event.end(pos, this);
+        }
+    }
+
+    /**
+     * The actual scheduled tick logic, overridden by the other flip-flop based gates
+     */
+    protected void onScheduledTick(BlockState state, ServerWorld world, BlockPos pos, Random random) {
+        if (OscillationGuard.intercept(world, pos, this) || CircuitEngine.interceptTick(world, pos)) {
+            return;
+        }
+
         boolean power = state.get(INPUT);
         boolean block = this.hasPower(world, pos, state);
         if( power && !block ) {
@@ -90,7 +125,7 @@ public class FlipFlopBlock extends AbstractRedstoneGateBlock implements Redstone
         } else if( !power ) {
             world.setBlockState(pos, state.with(INPUT, true).with(POWERED, !state.get(POWERED)), 2);
             if (!block) {
-                world.scheduleBlockTick(pos, this, this.getUpdateDelayInternal(state), TickPriority.VERY_HIGH);
+                GateTickQueue.schedule(world, pos, this, this.getUpdateDelayInternal(state), TickPriority.VERY_HIGH);
             }
         }
     }
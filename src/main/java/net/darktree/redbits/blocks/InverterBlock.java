@@ -1,6 +1,11 @@
 package net.darktree.redbits.blocks;
 
 import net.darktree.interference.api.RedstoneConnectable;
+import net.darktree.redbits.circuit.CircuitEngine;
+import net.darktree.redbits.profiler.GateTickEvent;
+import net.darktree.redbits.utils.GateTickQueue;
+import net.darktree.redbits.utils.GateUpdates;
+import net.darktree.redbits.utils.OscillationGuard;
 import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
 import net.minecraft.block.AbstractRedstoneGateBlock;
@@ -8,12 +13,14 @@ import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.RepeaterBlock;
 import net.minecraft.particle.DustParticleEffect;
+import net.minecraft.server.world.ServerWorld;
 import net.minecraft.state.StateManager;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Direction;
 import net.minecraft.util.math.random.Random;
 import net.minecraft.world.BlockView;
 import net.minecraft.world.World;
+import net.minecraft.world.tick.TickPriority;
 
 public class InverterBlock extends AbstractRedstoneGateBlock implements RedstoneConnectable {
 
@@ -32,6 +39,53 @@ public class InverterBlock extends AbstractRedstoneGateBlock implements Redstone
         builder.add(FACING, POWERED);
     }
 
+    @Override
+    public void onBlockAdded(BlockState state, World world, BlockPos pos, BlockState oldState, boolean notify) {
+        // state changes that don't change the output don't need to notify the target
+        if (!GateUpdates.canSkip(world, pos, oldState, state)) {
+            super.onBlockAdded(state, world, pos, oldState, notify);
+        }
+    }
+
+    @Override
+    protected void updatePowered(World world, BlockPos pos, BlockState state) {
+        if (CircuitEngine.interceptUpdate(world, pos) || isLocked(world, pos, state)) {
+            return;
+        }
+
+        // same as AbstractRedstoneGateBlock#updatePowered, but through the gate tick queue
+        boolean powered = state.get(POWERED);
+
+        if (powered != hasPower(world, pos, state) && !GateTickQueue.isTicking(world, pos, this)) {
+            TickPriority priority = isTargetNotAligned(world, pos, state) ? TickPriority.EXTREMELY_HIGH : powered ? TickPriority.VERY_HIGH : TickPriority.HIGH;
+            GateTickQueue.schedule(world, pos, this, getUpdateDelayInternal(state), priority);
+        }
+    }
+
+    @Override
+    public void scheduledTick(BlockState state, ServerWorld world, BlockPos pos, Random random) {
+        GateTickEvent event = GateTickEvent.start();
+
+        if (!OscillationGuard.intercept(world, pos, this) && !CircuitEngine.interceptTick(world, pos) && !isLocked(world, pos, state)) {
+            boolean powered = state.get(POWERED);
+            boolean power = hasPower(world, pos, state);
+
+            if (powered && !power) {
+                world.setBlockState(pos, state.with(POWERED, false), Block.NOTIFY_LISTENERS);
+            } else if (!powered) {
+                world.setBlockState(pos, state.with(POWERED, true), Block.NOTIFY_LISTENERS);
+
+                if (!power) {
+                    GateTickQueue.schedule(world, pos, this, getUpdateDelayInternal(state), TickPriority.VERY_HIGH);
+                }
+            }
+        }
+
+        if (event != null) {
+            event.end(pos, this);
+        }
+    }
+
     @Override
     protected boolean isValidInput(BlockState state) {
         return isRedstoneGate(state);
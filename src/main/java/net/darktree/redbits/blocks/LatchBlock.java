@@ -1,6 +1,8 @@
 package net.darktree.redbits.blocks;
 
 import net.darktree.redbits.utils.FacingDirection;
+import net.darktree.redbits.utils.GateTickQueue;
+import net.darktree.redbits.utils.GateUpdates;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.entity.LivingEntity;
@@ -66,7 +68,7 @@ public class LatchBlock extends AbstractRedstoneGate {
     @Override
     public void onPlaced(World world, BlockPos pos, BlockState state, LivingEntity placer, ItemStack itemStack) {
         if (this.hasPower(world, pos, state, state.get(POWER).other())) {
-            world.scheduleBlockTick(pos, this, 1);
+            GateTickQueue.schedule(world, pos, this, 1);
         }
     }
 
@@ -85,13 +87,13 @@ public class LatchBlock extends AbstractRedstoneGate {
     protected void updatePowered(World world, BlockPos pos, BlockState state) {
         boolean block = this.hasPower(world, pos, state, state.get(POWER).other());
 
-        if( block && !world.getBlockTickScheduler().isTicking(pos, this) ) {
-            world.scheduleBlockTick(pos, this, this.getUpdateDelayInternal(), TickPriority.HIGH);
+        if( block && !GateTickQueue.isTicking(world, pos, this) ) {
+            GateTickQueue.schedule(world, pos, this, this.getUpdateDelayInternal(), TickPriority.HIGH);
         }
     }
 
     @Override
-    public void scheduledTick(BlockState state, ServerWorld world, BlockPos pos, Random random) {
+    protected void onScheduledTick(BlockState state, ServerWorld world, BlockPos pos, Random random) {
         FacingDirection power = state.get(POWER).other();
 
         if( getPower(world, pos, state, power) > 0 ) {
@@ -101,15 +103,25 @@ public class LatchBlock extends AbstractRedstoneGate {
 
     @Override
     protected void updateTarget(World world, BlockPos pos, BlockState state) {
-        Direction direction = Direction.from( state.get(AXIS), Direction.AxisDirection.NEGATIVE ).getOpposite();
-        BlockPos blockPos = pos.offset(direction);
-        world.updateNeighbor(blockPos, this, pos);
-        world.updateNeighborsExcept(blockPos, this, direction);
-
-        direction = Direction.from( state.get(AXIS), Direction.AxisDirection.POSITIVE ).getOpposite();
-        blockPos = pos.offset(direction);
-        world.updateNeighbor(blockPos, this, pos);
-        world.updateNeighborsExcept(blockPos, this, direction);
+        updateSide(world, pos, Direction.from( state.get(AXIS), Direction.AxisDirection.POSITIVE ));
+        updateSide(world, pos, Direction.from( state.get(AXIS), Direction.AxisDirection.NEGATIVE ));
+    }
+
+    @Override
+    protected void updateChangedTargets(World world, BlockPos pos, BlockState oldState, BlockState state) {
+        Direction.Axis axis = state.get(AXIS);
+
+        if (oldState.get(AXIS) != axis) {
+            updateTarget(world, pos, state);
+            return;
+        }
+
+        // only notify the sides whose output changed, in the same order as updateTarget
+        Direction positive = Direction.from( axis, Direction.AxisDirection.POSITIVE );
+        Direction negative = positive.getOpposite();
+
+        if (GateUpdates.changes(world, pos, oldState, state, positive)) updateSide(world, pos, positive);
+        if (GateUpdates.changes(world, pos, oldState, state, negative)) updateSide(world, pos, negative);
     }
 
 }
@@ -0,0 +1,168 @@
+package net.darktree.redbits.blocks;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.darktree.redbits.utils.GateTickQueue;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerBlockEntityEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockEntityProvider;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.sound.SoundCategory;
+import net.minecraft.sound.SoundEvents;
+import net.minecraft.state.StateManager;
+import net.minecraft.text.Text;
+import net.minecraft.util.ActionResult;
+import net.minecraft.util.Hand;
+import net.minecraft.util.hit.BlockHitResult;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.util.math.random.Random;
+import net.minecraft.world.World;
+import net.minecraft.world.tick.TickPriority;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Timer with periods of minutes to hours. The block entity stores the tick at which the timer was powered
+ * and its period, the output is worked out from world time when the timer is observed (a neighbor update, a comparator
+ * read, its chunk loading) or when the single scheduled tick for its next transition fires. So while
+ * waiting for a transition the timer costs nothing, and it catches up after its chunk was unloaded.
+ */
+public class LongTimerBlock extends FlipFlopBlock implements BlockEntityProvider {
+
+    // 1 minute, 5 minutes, 20 minutes (one day) and 1 hour, selected with the DELAY property
+    public static final int[] PERIODS = {1200, 6000, 24000, 72000};
+
+    private static final Map<World, LongArrayList> LOADED = new WeakHashMap<>();
+
+    public LongTimerBlock(Settings settings) {
+        super(settings);
+        this.setDefaultState(this.stateManager.getDefaultState().with(FACING, Direction.NORTH).with(POWERED, false).with(INPUT, false).with(TimerBlock.DELAY, 1));
+    }
+
+    public static void register() {
+        ServerBlockEntityEvents.BLOCK_ENTITY_LOAD.register((entity, world) -> {
+            if (entity instanceof LongTimerBlockEntity) {
+                LOADED.computeIfAbsent(world, key -> new LongArrayList()).add(entity.getPos().asLong());
+            }
+        });
+
+        // the world can't be modified while the chunk is loading, catch up on the next world tick
+        ServerTickEvents.END_WORLD_TICK.register(world -> {
+            LongArrayList timers = LOADED.remove(world);
+
+            if (timers != null) {
+                BlockPos.Mutable pos = new BlockPos.Mutable();
+
+                for (int i = 0; i < timers.size(); i ++) {
+                    BlockState state = world.getBlockState(pos.set(timers.getLong(i)));
+
+                    if (state.getBlock() instanceof LongTimerBlock timer) {
+                        timer.refresh(world, pos.toImmutable(), state);
+                    }
+                }
+            }
+        });
+    }
+
+    @Override
+    protected void appendProperties(StateManager.Builder<Block, BlockState> builder) {
+        builder.add(FACING, POWERED, INPUT, TimerBlock.DELAY);
+    }
+
+    @Override
+    public BlockEntity createBlockEntity(BlockPos pos, BlockState state) {
+        return new LongTimerBlockEntity(pos, state);
+    }
+
+    @Override
+    public ActionResult onUse(BlockState state, World world, BlockPos pos, PlayerEntity player, Hand hand, BlockHitResult hit) {
+        if( player == null || player.getAbilities().allowModifyWorld ) {
+            state = state.cycle(TimerBlock.DELAY);
+            int period = PERIODS[state.get(TimerBlock.DELAY) - 1];
+
+            // a running timer keeps its phase and uses the new period from the next transition
+            if( world.getBlockEntity(pos) instanceof LongTimerBlockEntity timer ) {
+                timer.setPeriod(period, world.getTime(), state.get(INPUT));
+            }
+
+            world.setBlockState( pos, state );
+            world.playSound( null, pos, SoundEvents.BLOCK_COMPARATOR_CLICK, SoundCategory.BLOCKS, 1.0f, 0.7f );
+
+            if( player != null ) {
+                player.sendMessage(Text.translatable("message.redbits.timer_period", period / 1200), true);
+            }
+
+            return ActionResult.SUCCESS;
+        }
+        return super.onUse( state, world, pos, player, hand, hit );
+    }
+
+    @Override
+    public boolean hasComparatorOutput(BlockState state) {
+        return true;
+    }
+
+    /**
+     * Progress towards the next transition, from 0 right after it to 15 just before the following one
+     */
+    @Override
+    public int getComparatorOutput(BlockState state, World world, BlockPos pos) {
+        if( state.get(INPUT) && world.getBlockEntity(pos) instanceof LongTimerBlockEntity timer ) {
+            timer.update(world.getTime());
+            long elapsed = Math.max(0, world.getTime() - timer.getStart());
+            return (int) (elapsed % timer.getPeriod() * 16 / timer.getPeriod());
+        }
+
+        return 0;
+    }
+
+    @Override
+    protected void updatePowered(World world, BlockPos pos, BlockState state) {
+        if( world.isClient ) {
+            return;
+        }
+
+        boolean power = hasPower(world, pos, state);
+
+        if( power && !state.get(INPUT) ) {
+            if( world.getBlockEntity(pos) instanceof LongTimerBlockEntity timer ) {
+                timer.setStart(world.getTime());
+                world.setBlockState(pos, state.with(INPUT, true).with(POWERED, false), 2 );
+                GateTickQueue.schedule(world, pos, this, timer.getPeriod(), TickPriority.HIGH);
+            }
+        }else if( !power && state.get(INPUT) ) {
+            world.setBlockState(pos, state.with(INPUT, false).with(POWERED, false), 2 );
+        }else{
+            refresh(world, pos, state);
+        }
+    }
+
+    @Override
+    protected void onScheduledTick(BlockState state, ServerWorld world, BlockPos pos, Random random) {
+        updatePowered(world, pos, state);
+    }
+
+    /**
+     * Brings the output up to date with the world time and schedules the next transition
+     */
+    private void refresh(World world, BlockPos pos, BlockState state) {
+        if( state.get(INPUT) && world.getBlockEntity(pos) instanceof LongTimerBlockEntity timer ) {
+            timer.update(world.getTime());
+            long elapsed = Math.max(0, world.getTime() - timer.getStart());
+            boolean powered = (elapsed / timer.getPeriod() & 1) == 1;
+
+            if( powered != state.get(POWERED) ) {
+                world.setBlockState(pos, state.with(POWERED, powered), 2 );
+            }
+
+            // an earlier tick for the same timer is kept by the scheduler, the phase is checked again when it fires
+            GateTickQueue.schedule(world, pos, this, (int) (timer.getPeriod() - elapsed % timer.getPeriod()), TickPriority.HIGH);
+        }
+    }
+
+}
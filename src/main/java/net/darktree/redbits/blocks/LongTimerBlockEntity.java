@@ -0,0 +1,101 @@
+package net.darktree.redbits.blocks;
+
+import net.darktree.redbits.RedBits;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtElement;
+import net.minecraft.util.math.BlockPos;
+
+public class LongTimerBlockEntity extends BlockEntity {
+
+    private long start;
+    private int period = LongTimerBlock.PERIODS[0];
+
+    // period selected while the timer was running, used from the transition at the given tick
+    private int pending;
+    private long switchAt;
+
+    public LongTimerBlockEntity(BlockPos pos, BlockState state) {
+        super(RedBits.LONG_TIMER_BLOCK_ENTITY, pos, state);
+        this.period = LongTimerBlock.PERIODS[state.get(TimerBlock.DELAY) - 1];
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public int getPeriod() {
+        return period;
+    }
+
+    public void setStart(long start) {
+        this.start = start;
+
+        if (pending != 0) {
+            this.period = pending;
+            this.pending = 0;
+        }
+
+        markDirty();
+    }
+
+    /**
+     * Sets the period of the timer, a running timer keeps its current phase
+     * and output and switches to the new period at its next transition
+     */
+    public void setPeriod(int period, long now, boolean running) {
+        period = Math.max(1, period);
+
+        if (running) {
+            update(now);
+            switchAt = start + (Math.max(0, now - start) / this.period + 1) * this.period;
+            pending = period;
+        } else {
+            this.period = period;
+            pending = 0;
+        }
+
+        markDirty();
+    }
+
+    /**
+     * Applies the pending period once its transition has passed, the start is moved so
+     * that the phase entered at that transition stays the same under the new period
+     */
+    public void update(long now) {
+        if (pending != 0 && now >= switchAt) {
+            long phase = (switchAt - start) / period & 1;
+            start = switchAt - phase * pending;
+            period = pending;
+            pending = 0;
+            markDirty();
+        }
+    }
+
+    @Override
+    public void readNbt(NbtCompound nbt) {
+        super.readNbt(nbt);
+        start = nbt.getLong("start");
+
+        if (nbt.contains("period", NbtElement.NUMBER_TYPE)) {
+            period = Math.max(1, nbt.getInt("period"));
+        }
+
+        pending = Math.max(0, nbt.getInt("pending"));
+        switchAt = nbt.getLong("switch");
+    }
+
+    @Override
+    protected void writeNbt(NbtCompound nbt) {
+        super.writeNbt(nbt);
+        nbt.putLong("start", start);
+        nbt.putInt("period", period);
+
+        if (pending != 0) {
+            nbt.putInt("pending", pending);
+            nbt.putLong("switch", switchAt);
+        }
+    }
+
+}
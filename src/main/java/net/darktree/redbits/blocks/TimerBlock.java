@@ -1,5 +1,9 @@
 package net.darktree.redbits.blocks;
 
+import net.darktree.redbits.circuit.CircuitEngine;
+import net.darktree.redbits.utils.GateTickQueue;
+import net.darktree.redbits.utils.OscillationGuard;
+import net.darktree.redbits.utils.TimerWheel;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.entity.player.PlayerEntity;
@@ -34,6 +38,8 @@ public class TimerBlock extends FlipFlopBlock {
     @Override
     public ActionResult onUse(BlockState state, World world, BlockPos pos, PlayerEntity player, Hand hand, BlockHitResult hit) {
         if( player == null || player.getAbilities().allowModifyWorld ) {
+            CircuitEngine.release(world, pos);
+            state = world.getBlockState(pos);
             world.setBlockState( pos, state.cycle(DELAY) );
             world.playSound( null, pos, SoundEvents.BLOCK_COMPARATOR_CLICK, SoundCategory.BLOCKS, 1.0f, 0.7f );
             return ActionResult.SUCCESS;
@@ -41,11 +47,24 @@ public class TimerBlock extends FlipFlopBlock {
         return super.onUse( state, world, pos, player, hand, hit );
     }
 
+    @Override
+    public void onStateReplaced(BlockState state, World world, BlockPos pos, BlockState newState, boolean moved) {
+        if( !state.isOf(newState.getBlock()) ) {
+            TimerWheel.remove(world, pos);
+        }
+
+        super.onStateReplaced(state, world, pos, newState, moved);
+    }
+
     @Override
     protected void updatePowered(World world, BlockPos pos, BlockState state) {
+        if (CircuitEngine.interceptUpdate(world, pos)) {
+            return;
+        }
+
         if( hasPower(world, pos, state) ) {
-            if( !state.get(INPUT) ) {
-                world.scheduleBlockTick(pos, this, getUpdateDelayInternal(state), TickPriority.HIGH);
+            if( !state.get(INPUT) && !TimerWheel.isScheduled(world, pos) ) {
+                GateTickQueue.schedule(world, pos, this, getUpdateDelayInternal(state), TickPriority.HIGH);
             }
         }else{
             world.setBlockState(pos, state.with(INPUT, false), 2 );
@@ -53,7 +72,11 @@ public class TimerBlock extends FlipFlopBlock {
     }
 
     @Override
-    public void scheduledTick(BlockState state, ServerWorld world, BlockPos pos, Random random) {
+    protected void onScheduledTick(BlockState state, ServerWorld world, BlockPos pos, Random random) {
+        if (OscillationGuard.intercept(world, pos, this) || CircuitEngine.interceptTick(world, pos)) {
+            return;
+        }
+
         if( hasPower(world, pos, state) ) {
             if( state.get(INPUT) ) {
                 world.setBlockState(pos, state.cycle(POWERED), 2 );
@@ -61,7 +84,11 @@ public class TimerBlock extends FlipFlopBlock {
                 world.setBlockState(pos, state.with(INPUT, true), 2 );
             }
 
-            world.scheduleBlockTick(pos, this, (int) Math.pow( 2, state.get(DELAY) ), TickPriority.HIGH);
+            int period = 1 << state.get(DELAY);
+
+            if( !TimerWheel.schedule(world, pos, period) ) {
+                GateTickQueue.schedule(world, pos, this, period, TickPriority.HIGH);
+            }
         }else{
             world.setBlockState(pos, state.with(INPUT, false).with(POWERED, false), 2 );
         }
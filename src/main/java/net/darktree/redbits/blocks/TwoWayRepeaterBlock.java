@@ -1,5 +1,8 @@
 package net.darktree.redbits.blocks;
 
+import net.darktree.redbits.utils.GateTickQueue;
+import net.darktree.redbits.utils.GateUpdates;
+import net.darktree.redbits.utils.OscillationGuard;
 import net.darktree.redbits.utils.TwoWayPower;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
@@ -27,24 +30,47 @@ public class TwoWayRepeaterBlock extends AbstractRedstoneGate {
         this.setDefaultState(this.stateManager.getDefaultState().with(AXIS, Direction.Axis.X).with(POWER, TwoWayPower.NONE));
     }
 
+    private static final TwoWayPower[] POWERS = TwoWayPower.values();
+
+    /**
+     * Power is passed around packed into a single int, the
+     * lowest 4 bits hold the power level, the rest the direction ordinal
+     */
+    private static int pack( TwoWayPower direction, int power ) {
+        return direction.ordinal() << 4 | power;
+    }
+
+    private static int levelOf( int packed ) {
+        return packed & 15;
+    }
+
+    private static TwoWayPower directionOf( int packed ) {
+        return POWERS[packed >>> 4];
+    }
+
     protected boolean hasPower(World world, BlockPos pos, BlockState state, TwoWayPower power ) {
-        return this.getPower(world, pos, state, power).getPower() > 0;
+        return levelOf(this.getPower(world, pos, state, power)) > 0;
     }
 
-    protected TwoWayPowerUnit getPower(World world, BlockPos pos, BlockState state, TwoWayPower power ) {
+    protected int getPower(World world, BlockPos pos, BlockState state, TwoWayPower power ) {
 
         if (power == TwoWayPower.NONE) {
-            TwoWayPowerUnit a = getPower( world, pos, state, TwoWayPower.FRONT );
-            if (a.getPower() > 0) return a;
-            TwoWayPowerUnit b =  getPower( world, pos, state, TwoWayPower.BACK );
-            if (b.getPower() > 0) return b;
-            return new TwoWayPowerUnit( TwoWayPower.NONE, 0 );
+            Direction.Axis axis = state.get(AXIS);
+            int a = getPower( world, pos, axis, TwoWayPower.FRONT );
+            if (levelOf(a) > 0) return a;
+            int b = getPower( world, pos, axis, TwoWayPower.BACK );
+            if (levelOf(b) > 0) return b;
+            return pack( TwoWayPower.NONE, 0 );
         }
 
-        Direction direction = Direction.from(state.get(AXIS), power.asAxisDirection());
+        return getPower(world, pos, state.get(AXIS), power);
+    }
+
+    private int getPower(World world, BlockPos pos, Direction.Axis axis, TwoWayPower power ) {
+        Direction direction = Direction.from(axis, power.asAxisDirection());
         BlockPos blockPos = pos.offset(direction);
 
-        return new TwoWayPowerUnit(power, getInputPower(world, blockPos, direction));
+        return pack(power, getInputPower(world, blockPos, direction));
     }
 
     @Override
@@ -58,18 +84,22 @@ public class TwoWayRepeaterBlock extends AbstractRedstoneGate {
     }
 
     @Override
-    public void scheduledTick(BlockState state, ServerWorld world, BlockPos pos, Random random) {
+    protected void onScheduledTick(BlockState state, ServerWorld world, BlockPos pos, Random random) {
+        if (OscillationGuard.intercept(world, pos, this)) {
+            return;
+        }
+
         TwoWayPower power = state.get(POWER);
-        TwoWayPowerUnit block = getPower(world, pos, state, power);
+        int block = getPower(world, pos, state, power);
         boolean locked = power != TwoWayPower.NONE;
 
-        if (!locked && block.getPower() > 0 && block.getDirection() != power) {
-            world.setBlockState(pos, state.with(POWER, block.getDirection()), 2);
-        }else if(block.getPower() == 0) {
+        if (!locked && levelOf(block) > 0 && directionOf(block) != power) {
+            world.setBlockState(pos, state.with(POWER, directionOf(block)), 2);
+        }else if(levelOf(block) == 0) {
             world.setBlockState(pos, state.with(POWER, TwoWayPower.NONE), 2);
         }else if(!locked) {
-            world.setBlockState(pos, state.with(POWER, getPower(world, pos, state, TwoWayPower.NONE).getDirection()), 2);
-            world.scheduleBlockTick(pos, this, this.getUpdateDelayInternal(), TickPriority.VERY_HIGH);
+            world.setBlockState(pos, state.with(POWER, directionOf(getPower(world, pos, state, TwoWayPower.NONE))), 2);
+            GateTickQueue.schedule(world, pos, this, this.getUpdateDelayInternal(), TickPriority.VERY_HIGH);
         }
     }
 
@@ -87,13 +117,13 @@ public class TwoWayRepeaterBlock extends AbstractRedstoneGate {
         boolean power = state.get(POWER) != TwoWayPower.NONE;
         boolean block = this.hasPower(world, pos, state, state.get(POWER));
 
-        if (power != block && !world.getBlockTickScheduler().isTicking(pos, this)) {
+        if (power != block && !GateTickQueue.isTicking(world, pos, this)) {
             TickPriority tickPriority = TickPriority.HIGH;
             if (power) {
                 tickPriority = TickPriority.VERY_HIGH;
             }
 
-            world.scheduleBlockTick(pos, this, this.getUpdateDelayInternal(), tickPriority);
+            GateTickQueue.schedule(world, pos, this, this.getUpdateDelayInternal(), tickPriority);
         }
     }
 
@@ -105,41 +135,31 @@ public class TwoWayRepeaterBlock extends AbstractRedstoneGate {
     @Override
     public void onPlaced(World world, BlockPos pos, BlockState state, LivingEntity placer, ItemStack itemStack) {
         if (this.hasPower(world, pos, state, state.get(POWER))) {
-            world.scheduleBlockTick(pos, this, 1);
+            GateTickQueue.schedule(world, pos, this, 1);
         }
     }
 
     @Override
     protected void updateTarget(World world, BlockPos pos, BlockState state) {
-        Direction direction = Direction.from( state.get(AXIS), Direction.AxisDirection.NEGATIVE ).getOpposite();
-        BlockPos blockPos = pos.offset(direction);
-        world.updateNeighbor(blockPos, this, pos);
-        world.updateNeighborsExcept(blockPos, this, direction);
-
-        direction = Direction.from( state.get(AXIS), Direction.AxisDirection.POSITIVE ).getOpposite();
-        blockPos = pos.offset(direction);
-        world.updateNeighbor(blockPos, this, pos);
-        world.updateNeighborsExcept(blockPos, this, direction);
+        updateSide(world, pos, Direction.from( state.get(AXIS), Direction.AxisDirection.POSITIVE ));
+        updateSide(world, pos, Direction.from( state.get(AXIS), Direction.AxisDirection.NEGATIVE ));
     }
 
-    static class TwoWayPowerUnit {
-
-        private final int power;
-        private final TwoWayPower direction;
-
-        TwoWayPowerUnit( TwoWayPower direction, int power ) {
-            this.direction = direction;
-            this.power = power;
-        }
+    @Override
+    protected void updateChangedTargets(World world, BlockPos pos, BlockState oldState, BlockState state) {
+        Direction.Axis axis = state.get(AXIS);
 
-        public int getPower() {
-            return power;
+        if (oldState.get(AXIS) != axis) {
+            updateTarget(world, pos, state);
+            return;
         }
 
-        public TwoWayPower getDirection() {
-            return direction;
-        }
+        // only notify the sides whose output changed, in the same order as updateTarget
+        Direction positive = Direction.from( axis, Direction.AxisDirection.POSITIVE );
+        Direction negative = positive.getOpposite();
 
+        if (GateUpdates.changes(world, pos, oldState, state, positive)) updateSide(world, pos, positive);
+        if (GateUpdates.changes(world, pos, oldState, state, negative)) updateSide(world, pos, negative);
     }
 
 }
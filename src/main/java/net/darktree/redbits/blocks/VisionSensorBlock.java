@@ -3,6 +3,9 @@ package net.darktree.redbits.blocks;
 import net.darktree.interference.api.LookAtEvent;
 import net.darktree.interference.api.RedstoneConnectable;
 import net.darktree.redbits.RedBits;
+import net.darktree.redbits.profiler.SensorTriggerEvent;
+import net.darktree.redbits.utils.GateTickQueue;
+import net.darktree.redbits.utils.SensorIndex;
 import net.minecraft.block.Block;
 import net.minecraft.block.BlockState;
 import net.minecraft.entity.player.PlayerEntity;
@@ -27,16 +30,22 @@ public class VisionSensorBlock extends Block implements RedstoneConnectable, Loo
     }
 
 	public static void trigger(World world, BlockPos pos) {
+        SensorTriggerEvent event = SensorTriggerEvent.start();
+
         BlockState state = world.getBlockState(pos);
 
         if (!state.get(POWERED)) {
             Block self = state.getBlock();
 
-            if (!world.getBlockTickScheduler().isQueued(pos, self)) {
+            if (!GateTickQueue.isQueued(world, pos, self)) {
                 world.setBlockState(pos, state.with(POWERED, true));
-                world.scheduleBlockTick(pos, self, 2);
+                GateTickQueue.schedule(world, pos, self, 2);
             }
         }
+
+        if (event != null) {
+            event.end(pos, state.getBlock());
+        }
 	}
 
 	public void onLookAtStart(BlockState state, World world, BlockPos pos, PlayerEntity player, BlockHitResult hit) {
@@ -70,7 +79,17 @@ public class VisionSensorBlock extends Block implements RedstoneConnectable, Loo
 
     @Override
     public void onBlockAdded(BlockState state, World world, BlockPos pos, BlockState oldState, boolean notify) {
-        world.scheduleBlockTick(pos, this, 2);
+        GateTickQueue.schedule(world, pos, this, 2);
+        SensorIndex.add(world, pos);
+    }
+
+    @Override
+    public void onStateReplaced(BlockState state, World world, BlockPos pos, BlockState newState, boolean moved) {
+        if (!state.isOf(newState.getBlock())) {
+            SensorIndex.remove(world, pos);
+        }
+
+        super.onStateReplaced(state, world, pos, newState, moved);
     }
 
 }
@@ -1,8 +1,11 @@
 package net.darktree.redbits.blocks;
 
+import net.darktree.redbits.utils.OscillationGuard;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.WallRedstoneTorchBlock;
+import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.random.Random;
 import net.minecraft.world.World;
 
 public class WallInvertedRedstoneTorchBlock extends WallRedstoneTorchBlock {
@@ -16,4 +19,11 @@ public class WallInvertedRedstoneTorchBlock extends WallRedstoneTorchBlock {
     protected boolean shouldUnpower(World world, BlockPos pos, BlockState state) {
         return !super.shouldUnpower(world, pos, state);
     }
+
+    @Override
+    public void scheduledTick(BlockState state, ServerWorld world, BlockPos pos, Random random) {
+        if (!OscillationGuard.intercept(world, pos, this)) {
+            super.scheduledTick(state, world, pos, random);
+        }
+    }
 }
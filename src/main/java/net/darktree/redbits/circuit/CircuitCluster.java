@@ -0,0 +1,805 @@
+package net.darktree.redbits.circuit;
+
+import it.unimi.dsi.fastutil.ints.IntArrayFIFOQueue;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.darktree.redbits.blocks.DetectorBlock;
+import net.darktree.redbits.blocks.FlipFlopBlock;
+import net.darktree.redbits.blocks.TimerBlock;
+import net.darktree.redbits.utils.GateTickQueue;
+import net.minecraft.block.AbstractRedstoneGateBlock;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.block.RedstoneWireBlock;
+import net.minecraft.state.property.Properties;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.world.World;
+import net.minecraft.world.tick.TickPriority;
+
+/**
+ * A connected group of gates compiled into primitive arrays. Gates are connected either directly
+ * (a gate outputting into the front of another gate) or through a relay, a solid block that
+ * only has air and gates around it. The cluster is simulated with the same rules, delays and tick priorities
+ * as the gates themselves, but block states are only written back for gates whose output can be seen
+ * by blocks outside the cluster. Internal gates keep their stale state in the world until the cluster is released.
+ *
+ * Input updates and ticks are normally run right away on the server thread, at the same point where the gates
+ * would run them, see {@link #update(World, int, long)} and {@link #tick(World, int, long)}. In the parallel mode
+ * {@link #simulate(long)} only touches the arrays of this cluster and the changes are later written with {@link #apply(World)},
+ * this is only done for sealed clusters, see {@link #isSealed(World)}.
+ */
+public final class CircuitCluster {
+
+	public static final int MIN_SIZE = 8;
+	public static final int MAX_SIZE = 4096;
+
+	static final byte POWERED = 1;
+	static final byte INPUT = 2;
+	static final byte INVERTED = 4;
+
+	private static final long NONE = Long.MIN_VALUE;
+	private static final Direction[] DIRECTIONS = Direction.values();
+
+	final int size;
+	final long[] positions;
+	final long[] relays;
+	final long[] chunks;
+
+	// bounds of all gates and relays, and if nothing around the cluster can interact with it
+	final int minX, minY, minZ, maxX, maxY, maxZ;
+	private final Long2IntOpenHashMap index;
+	private final Long2IntOpenHashMap relayIndex;
+	private boolean sealed;
+	private boolean stale = true;
+
+	private final GateKind[] kinds;
+	private final Direction[] facings;
+	private final byte[] flags;
+	private final byte[] delays;
+	private final boolean[] notAligned;
+
+	private final int[] inputGate;
+	private final int[] inputRelay;
+	private final int[] outputGate;
+	private final int[] outputRelay;
+	private final int[][] relayFeeders;
+	private final int[][] relayReaders;
+	private final boolean[] edge;
+	private final boolean[] external;
+
+	private final long[] due;
+	private final byte[] priority;
+	private final long[] order;
+	private final boolean[] adopted;
+	private final boolean[] taken;
+	private final Long2ObjectOpenHashMap<IntArrayList> buckets = new Long2ObjectOpenHashMap<>();
+
+	// the world the cluster is updated in, null while it is simulated off the server thread
+	private World world;
+	private boolean draining;
+
+	private final IntArrayFIFOQueue updates = new IntArrayFIFOQueue();
+	private final IntArrayList fresh = new IntArrayList();
+	private final IntArrayList writes = new IntArrayList();
+	private final boolean[] writeQueued;
+
+	private CircuitCluster(World world, LongArrayList gates, LongArrayList relays) {
+		this.size = gates.size();
+		this.positions = gates.toLongArray();
+		this.relays = relays.toLongArray();
+
+		LongOpenHashSet covered = new LongOpenHashSet();
+
+		for (long gate : positions) {
+			covered.add(ChunkPos.toLong(ChunkSectionPos.getSectionCoord(BlockPos.unpackLongX(gate)), ChunkSectionPos.getSectionCoord(BlockPos.unpackLongZ(gate))));
+		}
+
+		this.chunks = covered.toLongArray();
+
+		int[] bounds = {Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE};
+		for (long gate : positions) include(bounds, gate);
+		for (long relay : this.relays) include(bounds, relay);
+
+		this.minX = bounds[0];
+		this.minY = bounds[1];
+		this.minZ = bounds[2];
+		this.maxX = bounds[3];
+		this.maxY = bounds[4];
+		this.maxZ = bounds[5];
+		this.index = new Long2IntOpenHashMap(size);
+		this.index.defaultReturnValue(-1);
+
+		this.relayIndex = new Long2IntOpenHashMap(this.relays.length);
+		this.relayIndex.defaultReturnValue(-1);
+
+		for (int i = 0; i < size; i ++) index.put(positions[i], i);
+		for (int i = 0; i < this.relays.length; i ++) relayIndex.put(this.relays[i], i);
+
+		kinds = new GateKind[size];
+		facings = new Direction[size];
+		flags = new byte[size];
+		delays = new byte[size];
+		notAligned = new boolean[size];
+		inputGate = new int[size];
+		inputRelay = new int[size];
+		outputGate = new int[size];
+		outputRelay = new int[size];
+		edge = new boolean[size];
+		external = new boolean[size];
+		due = new long[size];
+		priority = new byte[size];
+		order = new long[size];
+		adopted = new boolean[size];
+		taken = new boolean[size];
+		writeQueued = new boolean[size];
+
+		BlockPos.Mutable pos = new BlockPos.Mutable();
+		IntArrayList[] feeders = new IntArrayList[this.relays.length];
+		IntArrayList[] readers = new IntArrayList[this.relays.length];
+
+		for (int i = 0; i < this.relays.length; i ++) {
+			feeders[i] = new IntArrayList();
+			readers[i] = new IntArrayList();
+		}
+
+		for (int i = 0; i < size; i ++) {
+			BlockState state = world.getBlockState(pos.set(positions[i]));
+			Direction facing = state.get(Properties.HORIZONTAL_FACING);
+
+			kinds[i] = GateKind.of(state);
+			facings[i] = facing;
+			flags[i] = read(state);
+			delays[i] = (byte) (kinds[i] == GateKind.TIMER ? state.get(TimerBlock.DELAY) : 0);
+			due[i] = NONE;
+			adopted[i] = GateTickQueue.isQueued(world, pos, state.getBlock());
+
+			// same check as AbstractRedstoneGateBlock#isTargetNotAligned
+			BlockState target = world.getBlockState(pos.set(positions[i]).move(facing.getOpposite()));
+			notAligned[i] = AbstractRedstoneGateBlock.isRedstoneGate(target) && target.get(Properties.HORIZONTAL_FACING) != facing.getOpposite();
+
+			long in = BlockPos.offset(positions[i], facing);
+			long out = BlockPos.offset(positions[i], facing.getOpposite());
+
+			int gate = index.get(in);
+			inputGate[i] = gate != -1 && facingAt(world, in) == facing ? gate : -1;
+			inputRelay[i] = inputGate[i] == -1 ? relayIndex.get(in) : -1;
+
+			gate = index.get(out);
+			outputGate[i] = gate != -1 && facingAt(world, out) == facing ? gate : -1;
+			outputRelay[i] = outputGate[i] == -1 ? relayIndex.get(out) : -1;
+
+			if (inputRelay[i] != -1) readers[inputRelay[i]].add(i);
+			if (outputRelay[i] != -1) feeders[outputRelay[i]].add(i);
+
+			// gates next to blocks that could observe them need their state in the world
+			edge[i] = (outputGate[i] == -1 && outputRelay[i] == -1) || hasForeignNeighbour(world, pos, positions[i]);
+		}
+
+		relayFeeders = new int[this.relays.length][];
+		relayReaders = new int[this.relays.length][];
+
+		for (int i = 0; i < this.relays.length; i ++) {
+			relayFeeders[i] = feeders[i].toIntArray();
+			relayReaders[i] = readers[i].toIntArray();
+		}
+
+		for (int i = 0; i < size; i ++) {
+			if (isExternal(i)) {
+				external[i] = sample(world, i) > 0;
+			}
+		}
+	}
+
+	private boolean hasForeignNeighbour(World world, BlockPos.Mutable pos, long center) {
+		for (Direction direction : DIRECTIONS) {
+			long neighbour = BlockPos.offset(center, direction);
+
+			if (index.containsKey(neighbour) || relayIndex.containsKey(neighbour)) {
+				continue;
+			}
+
+			BlockState state = world.getBlockState(pos.set(neighbour));
+
+			if (!state.isAir() && (!state.isSolidBlock(world, pos) || state.emitsRedstonePower())) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	private static Direction facingAt(World world, long pos) {
+		return world.getBlockState(BlockPos.fromLong(pos)).get(Properties.HORIZONTAL_FACING);
+	}
+
+	/**
+	 * Finds the cluster the gate at the given position belongs to, returns null if the cluster is
+	 * too small or too large to be worth compiling. All visited gates are left in the given list.
+	 */
+	public static CircuitCluster compile(World world, BlockPos start, LongArrayList gates) {
+		gates.clear();
+
+		if (GateKind.of(world.getBlockState(start)) == null) {
+			return null;
+		}
+
+		LongArrayList relays = new LongArrayList();
+		Long2IntOpenHashMap visited = new Long2IntOpenHashMap();
+		LongArrayFIFOQueue queue = new LongArrayFIFOQueue();
+		BlockPos.Mutable pos = new BlockPos.Mutable();
+
+		visited.put(start.asLong(), 1);
+		queue.enqueue(start.asLong());
+
+		while (!queue.isEmpty()) {
+			if (gates.size() > MAX_SIZE) {
+				return null;
+			}
+
+			long gate = queue.dequeueLong();
+			Direction facing = world.getBlockState(pos.set(gate)).get(Properties.HORIZONTAL_FACING);
+			gates.add(gate);
+
+			for (long next : new long[] {BlockPos.offset(gate, facing), BlockPos.offset(gate, facing.getOpposite())}) {
+				if (visited.containsKey(next)) {
+					continue;
+				}
+
+				BlockState state = world.getBlockState(pos.set(next));
+
+				if (GateKind.of(state) != null && state.get(Properties.HORIZONTAL_FACING) == facing) {
+					visited.put(next, 1);
+					queue.enqueue(next);
+				} else if (isRelay(world, pos, state)) {
+					visited.put(next, 2);
+					relays.add(next);
+
+					// add all gates that output into or read from this relay
+					for (Direction direction : DIRECTIONS) {
+						long neighbour = BlockPos.offset(next, direction);
+						BlockState other = world.getBlockState(pos.set(neighbour));
+
+						if (!visited.containsKey(neighbour) && GateKind.of(other) != null && other.get(Properties.HORIZONTAL_FACING).getAxis() == direction.getAxis()) {
+							visited.put(neighbour, 1);
+							queue.enqueue(neighbour);
+						}
+					}
+				}
+			}
+		}
+
+		if (gates.size() < MIN_SIZE) {
+			return null;
+		}
+
+		return new CircuitCluster(world, new LongArrayList(gates), relays);
+	}
+
+	private static boolean isRelay(World world, BlockPos.Mutable pos, BlockState state) {
+		if (!state.isSolidBlock(world, pos) || state.emitsRedstonePower()) {
+			return false;
+		}
+
+		long center = pos.asLong();
+
+		for (Direction direction : DIRECTIONS) {
+			BlockState other = world.getBlockState(pos.set(center).move(direction));
+
+			if (!other.isAir() && GateKind.of(other) == null) {
+				pos.set(center);
+				return false;
+			}
+		}
+
+		pos.set(center);
+		return true;
+	}
+
+	private static byte read(BlockState state) {
+		byte value = 0;
+
+		if (state.get(Properties.POWERED)) value |= POWERED;
+		if (state.contains(FlipFlopBlock.INPUT) && state.get(FlipFlopBlock.INPUT)) value |= INPUT;
+		if (state.contains(DetectorBlock.INVERTED) && state.get(DetectorBlock.INVERTED)) value |= INVERTED;
+
+		return value;
+	}
+
+	private BlockState write(BlockState state, int i) {
+		state = state.with(Properties.POWERED, has(i, POWERED));
+
+		if (kinds[i].hasInput()) {
+			state = state.with(FlipFlopBlock.INPUT, has(i, INPUT));
+		}
+
+		return state;
+	}
+
+	private static void include(int[] bounds, long pos) {
+		int x = BlockPos.unpackLongX(pos), y = BlockPos.unpackLongY(pos), z = BlockPos.unpackLongZ(pos);
+
+		bounds[0] = Math.min(bounds[0], x);
+		bounds[1] = Math.min(bounds[1], y);
+		bounds[2] = Math.min(bounds[2], z);
+		bounds[3] = Math.max(bounds[3], x);
+		bounds[4] = Math.max(bounds[4], y);
+		bounds[5] = Math.max(bounds[5], z);
+	}
+
+	/**
+	 * Returns true if the position is at most the given distance from the bounds of this cluster
+	 */
+	boolean isNear(BlockPos pos, int distance) {
+		return minX - distance <= pos.getX() && pos.getX() <= maxX + distance
+			&& minY - distance <= pos.getY() && pos.getY() <= maxY + distance
+			&& minZ - distance <= pos.getZ() && pos.getZ() <= maxZ + distance;
+	}
+
+	/**
+	 * Marks the blocks around the cluster as changed, the next {@link #isSealed(World)} checks them again
+	 */
+	void invalidateBoundary() {
+		stale = true;
+	}
+
+	/**
+	 * Returns true if the cluster reads nothing from the world and nothing in the world reacts to it,
+	 * so that its ticks give the same result no matter where in the tick they are run. Around the gates
+	 * there can only be air, the blocks of the cluster and inert blocks, and the same goes for the neighbours
+	 * of the blocks the gates read from and output into. Changes around the cluster are reported by
+	 * the engine with {@link #invalidateBoundary()}.
+	 */
+	boolean isSealed(World world) {
+		if (stale) {
+			stale = false;
+			sealed = scanBoundary(world, new BlockPos.Mutable());
+		}
+
+		return sealed;
+	}
+
+	private boolean scanBoundary(World world, BlockPos.Mutable pos) {
+		for (int i = 0; i < size; i ++) {
+			long gate = positions[i];
+			long in = BlockPos.offset(gate, facings[i]);
+			long out = BlockPos.offset(gate, facings[i].getOpposite());
+
+			// the sides of a gate only get shape updates
+			for (Direction direction : DIRECTIONS) {
+				long side = BlockPos.offset(gate, direction);
+
+				if (side != in && side != out && !isQuiet(world, pos, side, true)) {
+					return false;
+				}
+			}
+
+			// a foreign input has to stay unpowered, power does not pass through air
+			if (isExternal(i) && (!isQuiet(world, pos, in, false) || (!world.getBlockState(pos.set(in)).isAir() && !isQuietAround(world, pos, in, gate, false)))) {
+				return false;
+			}
+
+			// a foreign target and its neighbours are notified when the gate changes
+			if (outputGate[i] == -1 && outputRelay[i] == -1 && (!isQuiet(world, pos, out, false) || !isQuietAround(world, pos, out, gate, world.getBlockState(pos.set(out)).isAir()))) {
+				return false;
+			}
+		}
+
+		for (long relay : relays) {
+			if (!isQuietAround(world, pos, relay, relay, true)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private boolean isQuietAround(World world, BlockPos.Mutable pos, long center, long except, boolean own) {
+		for (Direction direction : DIRECTIONS) {
+			long neighbour = BlockPos.offset(center, direction);
+
+			if (neighbour != except && !isQuiet(world, pos, neighbour, own)) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Returns true if the block is air, an inert block, or if allowed one of the gates or relays of this cluster.
+	 * Only plain solid blocks that don't emit power are inert, subclasses of Block can react to neighbour updates.
+	 */
+	private boolean isQuiet(World world, BlockPos.Mutable pos, long packed, boolean own) {
+		if (own && (index.containsKey(packed) || relayIndex.containsKey(packed))) {
+			return true;
+		}
+
+		BlockState state = world.getBlockState(pos.set(packed));
+		return state.isAir() || (state.getBlock().getClass() == Block.class && state.isSolidBlock(world, pos) && !state.emitsRedstonePower());
+	}
+
+	public int indexOf(long pos) {
+		return index.get(pos);
+	}
+
+	public boolean isExternal(int i) {
+		return inputGate[i] == -1 && inputRelay[i] == -1;
+	}
+
+	private boolean has(int i, byte flag) {
+		return (flags[i] & flag) != 0;
+	}
+
+	private boolean output(int i) {
+		return kinds[i] == GateKind.INVERTER ? !has(i, POWERED) : has(i, POWERED);
+	}
+
+	private boolean input(int i) {
+		if (inputGate[i] != -1) {
+			return output(inputGate[i]);
+		}
+
+		if (inputRelay[i] != -1) {
+			for (int feeder : relayFeeders[inputRelay[i]]) {
+				if (output(feeder)) return true;
+			}
+
+			return false;
+		}
+
+		return external[i];
+	}
+
+	/**
+	 * Same as AbstractRedstoneGateBlock#getPower
+	 */
+	private int sample(World world, int i) {
+		Direction direction = facings[i];
+		BlockPos pos = BlockPos.fromLong(BlockPos.offset(positions[i], direction));
+		int power = world.getEmittedRedstonePower(pos, direction);
+
+		if (power >= 15) {
+			return power;
+		}
+
+		BlockState state = world.getBlockState(pos);
+		return Math.max(power, state.isOf(Blocks.REDSTONE_WIRE) ? state.get(RedstoneWireBlock.POWER) : 0);
+	}
+
+	byte priority(int i) {
+		return priority[i];
+	}
+
+	long order(int i) {
+		return order[i];
+	}
+
+	boolean matches(int i, BlockState state) {
+		return GateKind.of(state) == kinds[i];
+	}
+
+	private World bind(World world) {
+		World previous = this.world;
+		this.world = world;
+		return previous;
+	}
+
+	/**
+	 * Called from updatePowered of one of the gates, samples its external input
+	 * and runs the same update the gate would run, right away
+	 */
+	public void update(World world, int i, long now) {
+		World previous = bind(world);
+
+		try {
+			if (isExternal(i)) {
+				external[i] = sample(world, i) > 0;
+			}
+
+			updatePowered(i, now);
+			drain(now);
+		} finally {
+			this.world = previous;
+		}
+	}
+
+	/**
+	 * Runs the scheduled tick of the given gate, called in the block tick phase at the place of the tick
+	 */
+	public void tick(World world, int i, long now) {
+		World previous = bind(world);
+
+		try {
+			due[i] = NONE;
+			taken[i] = false;
+			scheduledTick(i, now);
+			drain(now);
+		} finally {
+			this.world = previous;
+		}
+	}
+
+	/**
+	 * Called when a vanilla tick fires for one of the gates, either one that was scheduled
+	 * before this cluster was compiled, or the one that caused it to be compiled.
+	 * The tick is run right away, so it keeps its original priority and place in the tick order.
+	 */
+	public void adopt(World world, int i, long now) {
+		if (adopted[i] || due[i] == NONE) {
+			adopted[i] = false;
+			tick(world, i, now);
+		}
+	}
+
+	public boolean hasWork(long now) {
+		return buckets.containsKey(now);
+	}
+
+	/**
+	 * Removes the ticks due at the given time, they are then run one by one with {@link #tick(World, int, long)}
+	 */
+	IntArrayList take(long now) {
+		IntArrayList bucket = buckets.remove(now);
+
+		if (bucket != null) {
+			for (int i = 0; i < bucket.size(); i ++) {
+				taken[bucket.getInt(i)] = true;
+			}
+		}
+
+		return bucket;
+	}
+
+	/**
+	 * Runs all ticks due at the given time without touching the world, used by the parallel mode
+	 */
+	public void simulate(long now) {
+		IntArrayList bucket = buckets.remove(now);
+
+		if (bucket != null) {
+			bucket.sort((a, b) -> priority[a] != priority[b] ? Byte.compare(priority[a], priority[b]) : Long.compare(order[a], order[b]));
+
+			for (int i = 0; i < bucket.size(); i ++) {
+				int gate = bucket.getInt(i);
+				due[gate] = NONE;
+				scheduledTick(gate, now);
+				drain(now);
+			}
+		}
+	}
+
+	/**
+	 * Writes the changes of the last {@link #simulate(long)}, and gives the ticks
+	 * it scheduled their place in the world tick order
+	 */
+	public void apply(World world) {
+		for (int i = 0; i < fresh.size(); i ++) {
+			order[fresh.getInt(i)] = world.getTickOrder();
+		}
+
+		fresh.clear();
+		World previous = bind(world);
+
+		try {
+			for (int i = 0; i < writes.size(); i ++) {
+				int gate = writes.getInt(i);
+				writeQueued[gate] = false;
+				write(world, gate);
+			}
+
+			writes.clear();
+		} finally {
+			this.world = previous;
+		}
+	}
+
+	/**
+	 * Writes all gate states back to the world and hands pending ticks over to the tick scheduler,
+	 * ticks already collected for the current tick are left to the engine
+	 */
+	public void flush(World world, long now) {
+		writes.clear();
+
+		for (int i = 0; i < size; i ++) {
+			BlockPos pos = BlockPos.fromLong(positions[i]);
+			BlockState state = world.getBlockState(pos);
+
+			if (GateKind.of(state) != kinds[i]) {
+				continue;
+			}
+
+			BlockState updated = write(state, i);
+
+			if (updated != state) {
+				world.setBlockState(pos, updated, Block.NOTIFY_LISTENERS);
+			}
+
+			if (due[i] != NONE && !taken[i]) {
+				GateTickQueue.schedule(world, pos, state.getBlock(), (int) Math.max(1, due[i] - now), TickPriority.byIndex(priority[i]));
+			}
+		}
+	}
+
+	private void write(World world, int i) {
+		BlockPos pos = BlockPos.fromLong(positions[i]);
+		world.setBlockState(pos, write(world.getBlockState(pos), i), Block.NOTIFY_LISTENERS);
+	}
+
+	private void schedule(int i, long now, int delay, TickPriority priority) {
+		if (due[i] == NONE && !adopted[i]) {
+			enqueue(i, now + delay, (byte) priority.getIndex());
+		}
+	}
+
+	private void enqueue(int i, long time, byte priority) {
+		this.due[i] = time;
+		this.priority[i] = priority;
+		buckets.computeIfAbsent(time, key -> new IntArrayList()).add(i);
+
+		// off the server thread the tick gets its place in the tick order when the cluster is applied
+		if (world != null) {
+			this.order[i] = world.getTickOrder();
+		} else {
+			fresh.add(i);
+		}
+	}
+
+	private boolean isPending(int i) {
+		return due[i] != NONE || adopted[i];
+	}
+
+	private void set(int i, int value, long now) {
+		if (flags[i] == value) {
+			return;
+		}
+
+		flags[i] = (byte) value;
+
+		if (edge[i]) {
+			if (world != null) {
+				write(world, i);
+			} else if (!writeQueued[i]) {
+				writeQueued[i] = true;
+				writes.add(i);
+			}
+		}
+
+		// same as the neighbor update of the gate target, which runs before the gate schedules itself again
+		if (outputGate[i] != -1) {
+			updates.enqueue(outputGate[i]);
+		} else if (outputRelay[i] != -1) {
+			for (int reader : relayReaders[outputRelay[i]]) {
+				updates.enqueue(reader);
+			}
+		}
+
+		drain(now);
+	}
+
+	/**
+	 * Runs the queued updates, updates caused by them are queued and run by the outermost call,
+	 * the same way the chained neighbor updates of the world are
+	 */
+	private void drain(long now) {
+		if (draining) {
+			return;
+		}
+
+		draining = true;
+
+		try {
+			while (!updates.isEmpty()) {
+				updatePowered(updates.dequeueInt(), now);
+			}
+		} finally {
+			draining = false;
+		}
+	}
+
+	/**
+	 * Mirrors updatePowered of the gate blocks
+	 */
+	private void updatePowered(int i, long now) {
+		boolean block = input(i);
+
+		switch (kinds[i]) {
+			case INVERTER, FLIP_FLOP, DETECTOR -> {
+				boolean power = has(i, kinds[i] == GateKind.INVERTER ? POWERED : INPUT);
+
+				if (power != block && !isPending(i)) {
+					TickPriority priority = TickPriority.HIGH;
+
+					if (notAligned[i]) {
+						priority = TickPriority.EXTREMELY_HIGH;
+					} else if (power) {
+						priority = TickPriority.VERY_HIGH;
+					}
+
+					schedule(i, now, 2, priority);
+				}
+			}
+
+			case TIMER -> {
+				if (block) {
+					if (!has(i, INPUT)) {
+						schedule(i, now, 2, TickPriority.HIGH);
+					}
+				} else {
+					set(i, flags[i] & ~INPUT, now);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Mirrors scheduledTick of the gate blocks
+	 */
+	private void scheduledTick(int i, long now) {
+		boolean block = input(i);
+		int value = flags[i];
+
+		switch (kinds[i]) {
+			case INVERTER -> {
+				boolean powered = has(i, POWERED);
+
+				if (powered && !block) {
+					set(i, value & ~POWERED, now);
+				} else if (!powered) {
+					set(i, value | POWERED, now);
+
+					if (!block) {
+						schedule(i, now, 2, TickPriority.VERY_HIGH);
+					}
+				}
+			}
+
+			case FLIP_FLOP -> {
+				boolean power = has(i, INPUT);
+
+				if (power && !block) {
+					set(i, value & ~INPUT, now);
+				} else if (!power) {
+					set(i, (value | INPUT) ^ POWERED, now);
+
+					if (!block) {
+						schedule(i, now, 2, TickPriority.VERY_HIGH);
+					}
+				}
+			}
+
+			case DETECTOR -> {
+				boolean input = has(i, INPUT);
+				boolean inverted = has(i, INVERTED);
+
+				if (input && !block) {
+					set(i, (value & ~INPUT) | (inverted ? POWERED : 0), now);
+				} else if (!input && block) {
+					set(i, value | INPUT | (!inverted ? POWERED : 0), now);
+				} else {
+					set(i, value & ~POWERED, now);
+					return;
+				}
+
+				schedule(i, now, 2, TickPriority.VERY_HIGH);
+			}
+
+			case TIMER -> {
+				if (block) {
+					set(i, has(i, INPUT) ? value ^ POWERED : value | INPUT, now);
+					schedule(i, now, 1 << delays[i], TickPriority.HIGH);
+				} else {
+					set(i, value & ~(INPUT | POWERED), now);
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,531 @@
+package net.darktree.redbits.circuit;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.ints.IntComparator;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import net.darktree.redbits.RedBits;
+import net.darktree.redbits.utils.BlockTickPhase;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerChunkEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerWorldEvents;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.WorldChunk;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps track of the compiled circuit clusters of each world. Gates are compiled when they receive
+ * a scheduled tick, the cluster then takes over all updates and ticks of its gates. Input updates are run
+ * by the cluster as soon as the gate receives them, and the cluster ticks are run in the block tick phase,
+ * merged with the vanilla ticks by priority and tick order, see {@link BlockTickPhase}. A cluster is released
+ * (its state written back into the world and its pending ticks handed over to the tick scheduler) whenever one
+ * of the blocks it was compiled from, or a block next to them, changes type, when a player uses one of its gates
+ * or when its chunks stop ticking. Clusters are also written back right before one of their chunks is saved,
+ * so that the saved chunk holds their current states and pending ticks, see {@link #persist(ServerWorld, ChunkPos)}.
+ *
+ * In the parallel mode sealed clusters, ones that read nothing from the world and whose changes reach nothing
+ * that reacts to them (see {@link CircuitCluster#isSealed(World)}), are simulated together on a worker pool at the
+ * start of the block tick phase. Their ticks don't interact with anything else in the tick, so running them early
+ * gives the same result. Their changes are then applied on the server thread, in the cluster order. All other
+ * clusters are run at their place in the block tick phase.
+ */
+public class CircuitEngine implements BlockTickPhase.Source {
+
+	// how long a gate that failed to compile is left alone
+	private static final int REJECT_TICKS = 200;
+
+	// how far the boundary of a cluster reaches, the target of a gate and the neighbours of the target
+	private static final int BOUNDARY = 2;
+
+	// smallest number of clusters worth handing over to the worker pool
+	private static final int MIN_PARALLEL = 2;
+
+	private static ForkJoinPool pool;
+
+	private static final Direction[] DIRECTIONS = Direction.values();
+	private static final Map<World, CircuitEngine> ENGINES = new WeakHashMap<>();
+
+	private final Long2ObjectOpenHashMap<CircuitCluster> owners = new Long2ObjectOpenHashMap<>();
+	private final Long2LongOpenHashMap rejected = new Long2LongOpenHashMap();
+	private final List<CircuitCluster> clusters = new ArrayList<>();
+	private final LongArrayList visited = new LongArrayList();
+	private final List<CircuitCluster> batch = new ArrayList<>();
+	private boolean releasing;
+
+	// clusters by the chunks their boundary overlaps
+	private final Long2ObjectOpenHashMap<List<CircuitCluster>> nearby = new Long2ObjectOpenHashMap<>();
+
+	// ticks collected for the current block tick phase, sorted by priority and tick order
+	private final List<CircuitCluster> dueClusters = new ArrayList<>();
+	private final IntArrayList dueGates = new IntArrayList();
+	private final IntComparator dueComparator = this::compareDue;
+	private int[] dueOrder = new int[16];
+	private int dueNext;
+	private long dueTime;
+
+	public static void register() {
+		BlockTickPhase.register(ENGINES::get);
+		ServerChunkEvents.CHUNK_UNLOAD.register(CircuitEngine::onChunkUnload);
+		ServerLifecycleEvents.SERVER_STOPPING.register(server -> ENGINES.forEach((world, engine) -> engine.releaseAll(world)));
+		ServerWorldEvents.UNLOAD.register((server, world) -> ENGINES.remove(world));
+	}
+
+	public static boolean isEnabled() {
+		return RedBits.CONFIG.compiled_circuits;
+	}
+
+	public static boolean isParallel() {
+		return RedBits.CONFIG.parallel_circuits;
+	}
+
+	private static ForkJoinPool getPool() {
+		if (pool == null) {
+			AtomicInteger count = new AtomicInteger();
+
+			pool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1), factory -> {
+				ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(factory);
+				thread.setName("RedBits Circuit Worker #" + count.incrementAndGet());
+				return thread;
+			}, null, false);
+		}
+
+		return pool;
+	}
+
+	/**
+	 * Called from updatePowered of the compilable gates,
+	 * returns true if the gate is managed by a cluster
+	 */
+	public static boolean interceptUpdate(World world, BlockPos pos) {
+		if (world.isClient) {
+			return false;
+		}
+
+		CircuitEngine engine = ENGINES.get(world);
+
+		if (engine == null || engine.releasing) {
+			return false;
+		}
+
+		long key = pos.asLong();
+		CircuitCluster cluster = engine.owners.get(key);
+		int index = cluster == null ? -1 : cluster.indexOf(key);
+
+		if (index != -1) {
+			cluster.update(world, index, world.getTime());
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Called from scheduledTick of the compilable gates, returns true if the gate is
+	 * managed by a cluster, unmanaged gates are compiled when possible
+	 */
+	public static boolean interceptTick(World world, BlockPos pos) {
+		if (world.isClient) {
+			return false;
+		}
+
+		CircuitEngine engine = ENGINES.get(world);
+
+		if (engine == null) {
+			if (!isEnabled()) {
+				return false;
+			}
+
+			ENGINES.put(world, engine = new CircuitEngine());
+		}
+
+		if (engine.releasing) {
+			return false;
+		}
+
+		long key = pos.asLong();
+		CircuitCluster cluster = engine.owners.get(key);
+		int index = cluster == null ? -1 : cluster.indexOf(key);
+
+		if (index == -1 && isEnabled()) {
+			cluster = engine.compile(world, pos);
+			index = cluster == null ? -1 : cluster.indexOf(key);
+		}
+
+		if (index != -1) {
+			cluster.adopt(world, index, world.getTime());
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Releases the cluster the gate at the given position belongs to
+	 */
+	public static void release(World world, BlockPos pos) {
+		if (world.isClient) {
+			return;
+		}
+
+		CircuitEngine engine = ENGINES.get(world);
+
+		if (engine != null) {
+			CircuitCluster cluster = engine.owners.get(pos.asLong());
+
+			if (cluster != null) {
+				engine.release(world, cluster);
+			}
+		}
+	}
+
+	/**
+	 * Called before a block state is set in the world, releases all clusters
+	 * that were compiled from the position or one of its neighbours if the block type changes
+	 */
+	public static void onBlockChange(World world, BlockPos pos, BlockState state) {
+		if (world.isClient) {
+			return;
+		}
+
+		CircuitEngine engine = ENGINES.get(world);
+
+		if (engine == null || engine.owners.isEmpty() || engine.releasing) {
+			return;
+		}
+
+		List<CircuitCluster> near = engine.nearby.get(ChunkPos.toLong(pos.getX() >> 4, pos.getZ() >> 4));
+		Block previous = null;
+
+		// a block type change next to the boundary of a cluster can change whether it is sealed
+		for (int i = 0; near != null && i < near.size(); i ++) {
+			CircuitCluster cluster = near.get(i);
+
+			if (cluster.isNear(pos, BOUNDARY)) {
+				if (previous == null) {
+					previous = world.getBlockState(pos).getBlock();
+				}
+
+				if (previous != state.getBlock()) {
+					cluster.invalidateBoundary();
+				}
+			}
+		}
+
+		long center = pos.asLong();
+		CircuitCluster cluster = engine.owners.get(center);
+
+		for (int i = 0; cluster == null && i < DIRECTIONS.length; i ++) {
+			cluster = engine.owners.get(BlockPos.offset(center, DIRECTIONS[i]));
+		}
+
+		if (cluster != null && world.getBlockState(pos).getBlock() != state.getBlock()) {
+			engine.release(world, cluster);
+
+			// the changed block could have been next to two clusters
+			onBlockChange(world, pos, state);
+		}
+	}
+
+	/**
+	 * Writes the clusters with gates in the given chunk back into the world, called right before the chunk is saved.
+	 * Unlike a normal release the gates are not kept from compiling again, they form a new cluster on their next tick.
+	 */
+	public static void persist(ServerWorld world, ChunkPos chunk) {
+		CircuitEngine engine = ENGINES.get(world);
+
+		if (engine == null || engine.clusters.isEmpty() || engine.releasing) {
+			return;
+		}
+
+		long key = chunk.toLong();
+
+		for (CircuitCluster cluster : new ArrayList<>(engine.clusters)) {
+			for (long packed : cluster.chunks) {
+				if (packed == key) {
+					engine.flush(world, cluster);
+					break;
+				}
+			}
+		}
+	}
+
+	private static void onChunkUnload(ServerWorld world, WorldChunk chunk) {
+		CircuitEngine engine = ENGINES.get(world);
+
+		if (engine != null) {
+			long key = chunk.getPos().toLong();
+
+			// clusters are normally released when their chunks stop ticking, this is only a fallback
+			for (CircuitCluster cluster : new ArrayList<>(engine.clusters)) {
+				for (long packed : cluster.chunks) {
+					if (packed == key) {
+						RedBits.LOGGER.warn("Circuit cluster at {} was unloaded without being released", BlockPos.fromLong(cluster.positions[0]));
+						engine.remove(cluster);
+						break;
+					}
+				}
+			}
+		}
+	}
+
+	private CircuitCluster compile(World world, BlockPos pos) {
+		long now = world.getTime();
+		long key = pos.asLong();
+
+		if (rejected.get(key) > now) {
+			return null;
+		}
+
+		CircuitCluster cluster = CircuitCluster.compile(world, pos, visited);
+
+		if (cluster == null) {
+			for (int i = 0; i < visited.size(); i ++) {
+				rejected.put(visited.getLong(i), now + REJECT_TICKS);
+			}
+
+			return null;
+		}
+
+		for (long gate : cluster.positions) {
+			if (owners.containsKey(gate)) {
+				return null; // should never happen, but never let two clusters own one gate
+			}
+		}
+
+		for (long gate : cluster.positions) {
+			owners.put(gate, cluster);
+		}
+
+		for (long relay : cluster.relays) {
+			owners.put(relay, cluster);
+		}
+
+		clusters.add(cluster);
+		index(cluster, true);
+		return cluster;
+	}
+
+	/**
+	 * Releases all clusters of the given world, writing their state back into the world
+	 */
+	public static void releaseWorld(World world) {
+		CircuitEngine engine = ENGINES.get(world);
+
+		if (engine != null) {
+			engine.releaseAll(world);
+		}
+	}
+
+	@Override
+	public void collect(ServerWorld world, long time) {
+		dueClusters.clear();
+		dueGates.clear();
+		dueNext = 0;
+		dueTime = time;
+
+		if (!isEnabled()) {
+			releaseAll(world);
+			return;
+		}
+
+		if (time % REJECT_TICKS == 0) {
+			rejected.long2LongEntrySet().removeIf(entry -> entry.getLongValue() <= time);
+		}
+
+		// release clusters before their chunks are unloaded, while they can still be written to
+		for (CircuitCluster cluster : new ArrayList<>(clusters)) {
+			for (long chunk : cluster.chunks) {
+				if (!world.shouldTickBlocksInChunk(chunk)) {
+					release(world, cluster);
+					break;
+				}
+			}
+		}
+
+		if (isParallel()) {
+			stepParallel(world, time);
+		}
+
+		for (int i = 0; i < clusters.size(); i ++) {
+			CircuitCluster cluster = clusters.get(i);
+			IntArrayList bucket = cluster.take(time);
+
+			if (bucket != null) {
+				for (int j = 0; j < bucket.size(); j ++) {
+					dueClusters.add(cluster);
+					dueGates.add(bucket.getInt(j));
+				}
+			}
+		}
+
+		int count = dueGates.size();
+
+		if (dueOrder.length < count) {
+			dueOrder = new int[count * 2];
+		}
+
+		for (int i = 0; i < count; i ++) {
+			dueOrder[i] = i;
+		}
+
+		IntArrays.quickSort(dueOrder, 0, count, dueComparator);
+	}
+
+	private int compareDue(int a, int b) {
+		CircuitCluster first = dueClusters.get(a), second = dueClusters.get(b);
+		int gateA = dueGates.getInt(a), gateB = dueGates.getInt(b);
+
+		int result = Byte.compare(first.priority(gateA), second.priority(gateB));
+		return result == 0 ? Long.compare(first.order(gateA), second.order(gateB)) : result;
+	}
+
+	@Override
+	public boolean hasNext() {
+		return dueNext < dueGates.size();
+	}
+
+	@Override
+	public long getNextTime() {
+		return dueTime;
+	}
+
+	@Override
+	public int getNextPriority() {
+		int entry = dueOrder[dueNext];
+		return dueClusters.get(entry).priority(dueGates.getInt(entry));
+	}
+
+	@Override
+	public long getNextOrder() {
+		int entry = dueOrder[dueNext];
+		return dueClusters.get(entry).order(dueGates.getInt(entry));
+	}
+
+	@Override
+	public void runNext(ServerWorld world) {
+		int entry = dueOrder[dueNext ++];
+		CircuitCluster cluster = dueClusters.get(entry);
+		int gate = dueGates.getInt(entry);
+
+		if (owners.get(cluster.positions[gate]) == cluster) {
+			cluster.tick(world, gate, dueTime);
+			return;
+		}
+
+		// the cluster was released after its ticks were collected, the gate runs the tick on its own
+		BlockPos pos = BlockPos.fromLong(cluster.positions[gate]);
+		BlockState state = world.getBlockState(pos);
+
+		if (cluster.matches(gate, state)) {
+			state.scheduledTick(world, pos, world.random);
+		}
+	}
+
+	/**
+	 * Runs all due ticks of the sealed clusters, simulating them on the worker pool,
+	 * does nothing if there are too few of them
+	 */
+	private void stepParallel(ServerWorld world, long now) {
+		batch.clear();
+
+		for (int i = 0; i < clusters.size(); i ++) {
+			CircuitCluster cluster = clusters.get(i);
+
+			if (cluster.hasWork(now) && cluster.isSealed(world)) {
+				batch.add(cluster);
+			}
+		}
+
+		if (batch.size() < MIN_PARALLEL) {
+			batch.clear();
+			return;
+		}
+
+		getPool().submit(() -> batch.parallelStream().forEach(cluster -> cluster.simulate(now))).join();
+
+		for (int i = 0; i < batch.size(); i ++) {
+			batch.get(i).apply(world);
+		}
+
+		batch.clear();
+	}
+
+	/**
+	 * Adds the cluster to, or removes it from, every chunk its boundary overlaps
+	 */
+	private void index(CircuitCluster cluster, boolean add) {
+		for (int x = (cluster.minX - BOUNDARY) >> 4; x <= (cluster.maxX + BOUNDARY) >> 4; x ++) {
+			for (int z = (cluster.minZ - BOUNDARY) >> 4; z <= (cluster.maxZ + BOUNDARY) >> 4; z ++) {
+				long key = ChunkPos.toLong(x, z);
+
+				if (add) {
+					nearby.computeIfAbsent(key, chunk -> new ArrayList<>()).add(cluster);
+					continue;
+				}
+
+				List<CircuitCluster> list = nearby.get(key);
+
+				if (list != null && list.remove(cluster) && list.isEmpty()) {
+					nearby.remove(key);
+				}
+			}
+		}
+	}
+
+	private void release(World world, CircuitCluster cluster) {
+		// don't compile the gates again right away
+		long until = world.getTime() + REJECT_TICKS;
+
+		for (long gate : cluster.positions) {
+			rejected.put(gate, until);
+		}
+
+		flush(world, cluster);
+	}
+
+	private void flush(World world, CircuitCluster cluster) {
+		remove(cluster);
+		releasing = true;
+
+		try {
+			cluster.flush(world, world.getTime());
+		} finally {
+			releasing = false;
+		}
+	}
+
+	private void releaseAll(World world) {
+		while (!clusters.isEmpty()) {
+			release(world, clusters.get(clusters.size() - 1));
+		}
+	}
+
+	private void remove(CircuitCluster cluster) {
+		for (long gate : cluster.positions) {
+			owners.remove(gate);
+		}
+
+		for (long relay : cluster.relays) {
+			owners.remove(relay);
+		}
+
+		clusters.remove(cluster);
+		index(cluster, false);
+	}
+
+}
@@ -0,0 +1,40 @@
+package net.darktree.redbits.circuit;
+
+import net.darktree.redbits.blocks.DetectorBlock;
+import net.darktree.redbits.blocks.FlipFlopBlock;
+import net.darktree.redbits.blocks.InverterBlock;
+import net.darktree.redbits.blocks.TimerBlock;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+
+/**
+ * Gates that can be compiled into a circuit cluster, all of them read
+ * their single input from the front and output to the back.
+ */
+public enum GateKind {
+	INVERTER,
+	FLIP_FLOP,
+	DETECTOR,
+	TIMER;
+
+	public static GateKind of(BlockState state) {
+		return of(state.getBlock());
+	}
+
+	public static GateKind of(Block block) {
+		// exact classes, so that future subclasses are not compiled by accident
+		Class<?> clazz = block.getClass();
+
+		if (clazz == InverterBlock.class) return INVERTER;
+		if (clazz == FlipFlopBlock.class) return FLIP_FLOP;
+		if (clazz == DetectorBlock.class) return DETECTOR;
+		if (clazz == TimerBlock.class) return TIMER;
+
+		return null;
+	}
+
+	public boolean hasInput() {
+		return this != INVERTER;
+	}
+
+}
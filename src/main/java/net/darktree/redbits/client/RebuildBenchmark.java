@@ -0,0 +1,169 @@
+package net.darktree.redbits.client;
+
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.darktree.redbits.RedBits;
+import net.darktree.redbits.blocks.AnalogLampBlock;
+import net.fabricmc.api.EnvType;
+import net.fabricmc.api.Environment;
+import net.fabricmc.fabric.api.client.command.v2.ClientCommandManager;
+import net.fabricmc.fabric.api.client.command.v2.ClientCommandRegistrationCallback;
+import net.fabricmc.fabric.api.client.event.lifecycle.v1.ClientTickEvents;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.world.ClientWorld;
+import net.minecraft.text.Text;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.util.math.random.Random;
+
+import java.util.function.Consumer;
+
+/**
+ * Client benchmark scene for the rebuild coalescer, run with /redbitsclient rebuilds [size] [seconds]. A wall of
+ * RGB lamps is placed (on the client only) in front of the player and every lamp changes its color every tick,
+ * first with coalescing enabled and then with it disabled. Afterwards the original blocks are restored
+ * and the frame times and rebuild requests of both runs are printed to the chat.
+ */
+@Environment(EnvType.CLIENT)
+public class RebuildBenchmark {
+
+	private static final int DISTANCE = 8;
+	private static final int FLAGS = Block.NOTIFY_LISTENERS | Block.FORCE_STATE;
+
+	private static final Random RANDOM = Random.create();
+	private static final Long2ObjectOpenHashMap<BlockState> ORIGINAL = new Long2ObjectOpenHashMap<>();
+
+	private static BlockPos origin;
+	private static Direction right;
+	private static int size;
+	private static int ticks;
+	private static int remaining;
+	private static boolean previous;
+	private static Run on, off;
+	private static Run current;
+	private static long frame;
+
+	private static class Run {
+		final String name;
+		long frames, total, max, requests;
+
+		Run(String name) {
+			this.name = name;
+		}
+
+		String format() {
+			return String.format("%s: %d frames, avg %.2f ms, max %.2f ms, %d rebuild requests", name, frames, frames == 0 ? 0 : total / 1e6 / frames, max / 1e6, requests);
+		}
+	}
+
+	public static void register() {
+		ClientCommandRegistrationCallback.EVENT.register((dispatcher, registry) -> dispatcher.register(
+				ClientCommandManager.literal("redbitsclient").then(ClientCommandManager.literal("rebuilds")
+						.executes(context -> start(32, 10))
+						.then(ClientCommandManager.argument("size", IntegerArgumentType.integer(1, 128))
+								.executes(context -> start(IntegerArgumentType.getInteger(context, "size"), 10))
+								.then(ClientCommandManager.argument("seconds", IntegerArgumentType.integer(1, 120))
+										.executes(context -> start(IntegerArgumentType.getInteger(context, "size"), IntegerArgumentType.getInteger(context, "seconds")))))))
+		);
+
+		ClientTickEvents.END_CLIENT_TICK.register(RebuildBenchmark::tick);
+	}
+
+	private static int start(int size, int seconds) {
+		MinecraftClient client = MinecraftClient.getInstance();
+
+		if (current != null || client.player == null || client.world == null) {
+			return 0;
+		}
+
+		RebuildBenchmark.size = size;
+		RebuildBenchmark.ticks = seconds * 20 / 2;
+		RebuildBenchmark.remaining = ticks;
+		RebuildBenchmark.previous = RedBits.CONFIG.coalesce_chunk_rebuilds;
+
+		Direction facing = client.player.getHorizontalFacing();
+		right = facing.rotateYClockwise();
+		origin = client.player.getBlockPos().offset(facing, DISTANCE).offset(right, -size / 2).up(1);
+
+		ORIGINAL.clear();
+		forEach(pos -> ORIGINAL.put(pos.asLong(), client.world.getBlockState(pos)));
+
+		on = new Run("coalescing on");
+		off = new Run("coalescing off");
+		begin(on, true);
+
+		client.player.sendMessage(Text.literal("Running rebuild benchmark, " + size + "x" + size + " lamps for " + seconds + " seconds"), false);
+		return 1;
+	}
+
+	private static void begin(Run run, boolean enabled) {
+		RedBits.CONFIG.coalesce_chunk_rebuilds = enabled;
+		RebuildCoalescer.scheduled = 0;
+		current = run;
+		frame = 0;
+	}
+
+	private static void tick(MinecraftClient client) {
+		if (current == null) {
+			return;
+		}
+
+		ClientWorld world = client.world;
+
+		if (world == null || client.player == null) {
+			current = null;
+			RedBits.CONFIG.coalesce_chunk_rebuilds = previous;
+			return;
+		}
+
+		if (remaining -- > 0) {
+			BlockState lamp = RedBits.RGB_LAMP.getDefaultState();
+			forEach(pos -> world.setBlockState(pos, lamp.with(AnalogLampBlock.POWER, RANDOM.nextInt(16)), FLAGS));
+			return;
+		}
+
+		current.requests = RebuildCoalescer.scheduled;
+
+		if (current == on) {
+			remaining = ticks;
+			begin(off, false);
+			return;
+		}
+
+		forEach(pos -> world.setBlockState(pos, ORIGINAL.get(pos.asLong()), FLAGS));
+		RedBits.CONFIG.coalesce_chunk_rebuilds = previous;
+		current = null;
+
+		client.player.sendMessage(Text.literal(on.format()), false);
+		client.player.sendMessage(Text.literal(off.format()), false);
+	}
+
+	/**
+	 * Called at the start of every frame
+	 */
+	public static void onFrame() {
+		if (current != null) {
+			long now = System.nanoTime();
+
+			if (frame != 0) {
+				long time = now - frame;
+				current.frames ++;
+				current.total += time;
+				current.max = Math.max(current.max, time);
+			}
+
+			frame = now;
+		}
+	}
+
+	private static void forEach(Consumer<BlockPos> consumer) {
+		for (int y = 0; y < size; y ++) {
+			for (int x = 0; x < size; x ++) {
+				consumer.accept(origin.offset(right, x).up(y));
+			}
+		}
+	}
+
+}
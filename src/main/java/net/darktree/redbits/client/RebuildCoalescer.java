@@ -0,0 +1,111 @@
+package net.darktree.redbits.client;
+
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import net.darktree.redbits.RedBits;
+import net.fabricmc.api.EnvType;
+import net.fabricmc.api.Environment;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.client.render.WorldRenderer;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+
+import java.util.Set;
+
+/**
+ * Holds the chunk section rebuilds caused by lamp, emitter and gate state changes until the start
+ * of the next frame. Vanilla marks up to 27 sections around every changed block, so with thousands of lamps flipping
+ * in one tick most of the work is marking the same sections again, here every section is marked at most once per frame.
+ */
+@Environment(EnvType.CLIENT)
+public class RebuildCoalescer {
+
+	private static final LongOpenHashSet SECTIONS = new LongOpenHashSet();
+	private static Set<Block> blocks;
+
+	// statistics, used by the rebuild benchmark
+	static long deferred;
+	static long flushed;
+	static long scheduled;
+
+	public static boolean isEnabled() {
+		return RedBits.CONFIG.coalesce_chunk_rebuilds;
+	}
+
+	private static Set<Block> getBlocks() {
+		if (blocks == null) {
+			blocks = new ReferenceOpenHashSet<>(new Block[] {
+					RedBits.REDSTONE_LAMP, RedBits.RGB_LAMP, RedBits.REDSTONE_EMITTER,
+					RedBits.INVERTER, RedBits.T_FLIP_FLOP, RedBits.DETECTOR, RedBits.TWO_WAY_REPEATER,
+					RedBits.LATCH, RedBits.TIMER, RedBits.LONG_TIMER
+			});
+		}
+
+		return blocks;
+	}
+
+	/**
+	 * Called for every block change seen by the world renderer, returns true if the rebuild was deferred.
+	 * Important rebuilds (flag 8, set for changes made by the player) are never deferred, vanilla runs them
+	 * synchronously, and the sections they cover are dropped from the held ones as they are rebuilt right away
+	 */
+	public static boolean defer(BlockPos pos, BlockState oldState, BlockState newState, int flags) {
+		if (!isEnabled() || oldState.getBlock() != newState.getBlock() || !getBlocks().contains(newState.getBlock())) {
+			return false;
+		}
+
+		boolean important = (flags & Block.REDRAW_ON_MAIN_THREAD) != 0;
+
+		if (important && SECTIONS.isEmpty()) {
+			return false;
+		}
+
+		// same sections as WorldRenderer#scheduleSectionRender would mark
+		for (int x = (pos.getX() - 1) >> 4; x <= (pos.getX() + 1) >> 4; x ++) {
+			for (int y = (pos.getY() - 1) >> 4; y <= (pos.getY() + 1) >> 4; y ++) {
+				for (int z = (pos.getZ() - 1) >> 4; z <= (pos.getZ() + 1) >> 4; z ++) {
+					long section = ChunkSectionPos.asLong(x, y, z);
+
+					if (important) {
+						SECTIONS.remove(section);
+					} else {
+						SECTIONS.add(section);
+					}
+				}
+			}
+		}
+
+		if (important) {
+			return false;
+		}
+
+		deferred ++;
+		return true;
+	}
+
+	public static void onSchedule() {
+		scheduled ++;
+	}
+
+	/**
+	 * Marks all held sections for a rebuild, called at the start of every frame
+	 */
+	public static void flush(WorldRenderer renderer) {
+		if (SECTIONS.isEmpty()) {
+			return;
+		}
+
+		LongIterator iterator = SECTIONS.iterator();
+
+		while (iterator.hasNext()) {
+			long section = iterator.nextLong();
+			renderer.scheduleBlockRender(ChunkSectionPos.unpackX(section), ChunkSectionPos.unpackY(section), ChunkSectionPos.unpackZ(section));
+		}
+
+		flushed += SECTIONS.size();
+		SECTIONS.clear();
+	}
+
+}
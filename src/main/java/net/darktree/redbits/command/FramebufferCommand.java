@@ -0,0 +1,140 @@
+package net.darktree.redbits.command;
+
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.arguments.StringArgumentType;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import com.mojang.brigadier.exceptions.SimpleCommandExceptionType;
+import com.mojang.brigadier.suggestion.SuggestionProvider;
+import net.darktree.redbits.display.FrameLoader;
+import net.darktree.redbits.display.Framebuffer;
+import net.darktree.redbits.display.Framebuffers;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.command.CommandSource;
+import net.minecraft.command.argument.BlockPosArgumentType;
+import net.minecraft.server.command.CommandManager;
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.text.Text;
+import net.minecraft.util.math.BlockPos;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+/**
+ * /redbits framebuffer bind|unbind|fill|load|list, frame files are read from the "framebuffers" directory
+ */
+public class FramebufferCommand {
+
+	private static final SimpleCommandExceptionType UNKNOWN = new SimpleCommandExceptionType(Text.literal("Unknown framebuffer"));
+	private static final SimpleCommandExceptionType INVALID_FILE = new SimpleCommandExceptionType(Text.literal("Invalid frame file"));
+
+	private static final SuggestionProvider<ServerCommandSource> NAMES = (context, builder) -> CommandSource.suggestMatching(Framebuffers.getNames(), builder);
+
+	private static final SuggestionProvider<ServerCommandSource> FILES = (context, builder) -> {
+		try (Stream<Path> files = Files.list(getDirectory())) {
+			return CommandSource.suggestMatching(files.map(path -> path.getFileName().toString()), builder);
+		} catch (IOException e) {
+			return builder.buildFuture();
+		}
+	};
+
+	public static LiteralArgumentBuilder<ServerCommandSource> build() {
+		return CommandManager.literal("framebuffer")
+				.then(CommandManager.literal("bind")
+						.then(CommandManager.argument("name", StringArgumentType.word())
+								.then(CommandManager.argument("from", BlockPosArgumentType.blockPos())
+										.then(CommandManager.argument("to", BlockPosArgumentType.blockPos())
+												.executes(FramebufferCommand::bind)))))
+				.then(CommandManager.literal("unbind")
+						.then(CommandManager.argument("name", StringArgumentType.word()).suggests(NAMES)
+								.executes(FramebufferCommand::unbind)))
+				.then(CommandManager.literal("fill")
+						.then(CommandManager.argument("name", StringArgumentType.word()).suggests(NAMES)
+								.then(CommandManager.argument("color", IntegerArgumentType.integer(0, 15))
+										.executes(FramebufferCommand::fill))))
+				.then(CommandManager.literal("load")
+						.then(CommandManager.argument("name", StringArgumentType.word()).suggests(NAMES)
+								.then(CommandManager.argument("file", StringArgumentType.string()).suggests(FILES)
+										.executes(context -> load(context, 0))
+										.then(CommandManager.argument("frame", IntegerArgumentType.integer(0))
+												.executes(context -> load(context, IntegerArgumentType.getInteger(context, "frame")))))))
+				.then(CommandManager.literal("list")
+						.executes(FramebufferCommand::list));
+	}
+
+	private static Path getDirectory() throws IOException {
+		return Files.createDirectories(FabricLoader.getInstance().getGameDir().resolve("framebuffers"));
+	}
+
+	private static Framebuffer get(CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
+		Framebuffer buffer = Framebuffers.get(StringArgumentType.getString(context, "name"));
+
+		if (buffer == null) {
+			throw UNKNOWN.create();
+		}
+
+		return buffer;
+	}
+
+	private static int bind(CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
+		String name = StringArgumentType.getString(context, "name");
+		BlockPos from = BlockPosArgumentType.getLoadedBlockPos(context, "from");
+		BlockPos to = BlockPosArgumentType.getLoadedBlockPos(context, "to");
+
+		try {
+			// an invalid region throws before anything is allocated or replaced
+			Framebuffer buffer = Framebuffers.bind(name, context.getSource().getWorld(), from, to);
+			context.getSource().sendFeedback(Text.literal("Bound framebuffer '" + name + "' (" + buffer.getWidth() + "x" + buffer.getHeight() + ")"), true);
+			return 1;
+		} catch (IllegalArgumentException e) {
+			context.getSource().sendError(Text.literal(e.getMessage()));
+			return 0;
+		}
+	}
+
+	private static int unbind(CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
+		if (!Framebuffers.unbind(StringArgumentType.getString(context, "name"))) {
+			throw UNKNOWN.create();
+		}
+
+		context.getSource().sendFeedback(Text.literal("Unbound framebuffer"), true);
+		return 1;
+	}
+
+	private static int fill(CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
+		get(context).fill(IntegerArgumentType.getInteger(context, "color"));
+		return 1;
+	}
+
+	private static int load(CommandContext<ServerCommandSource> context, int frame) throws CommandSyntaxException {
+		Framebuffer buffer = get(context);
+
+		try {
+			Path directory = getDirectory().toAbsolutePath().normalize();
+			Path file = directory.resolve(StringArgumentType.getString(context, "file")).normalize();
+
+			// don't allow reading files from outside the framebuffer directory
+			if (!file.startsWith(directory) || !Files.isRegularFile(file)) {
+				throw INVALID_FILE.create();
+			}
+
+			buffer.setFrame(FrameLoader.load(file, buffer.getWidth(), buffer.getHeight(), frame));
+			int changed = buffer.push();
+
+			context.getSource().sendFeedback(Text.literal("Loaded frame, " + changed + " lamps changed"), false);
+			return changed;
+		} catch (IOException e) {
+			context.getSource().sendError(Text.literal("Failed to load frame: " + e.getMessage()));
+			return 0;
+		}
+	}
+
+	private static int list(CommandContext<ServerCommandSource> context) {
+		context.getSource().sendFeedback(Text.literal("Framebuffers: " + String.join(", ", Framebuffers.getNames())), false);
+		return Framebuffers.getNames().size();
+	}
+
+}
@@ -0,0 +1,47 @@
+package net.darktree.redbits.command;
+
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.context.CommandContext;
+import net.darktree.redbits.utils.OscillationGuard;
+import net.minecraft.server.command.CommandManager;
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.text.Text;
+
+import java.util.List;
+
+/**
+ * /redbits guard [clear], lists the gates recently frozen by the oscillation guard
+ */
+public class GuardCommand {
+
+	public static LiteralArgumentBuilder<ServerCommandSource> build() {
+		return CommandManager.literal("guard")
+				.executes(GuardCommand::list)
+				.then(CommandManager.literal("clear")
+						.executes(GuardCommand::clear));
+	}
+
+	private static int list(CommandContext<ServerCommandSource> context) {
+		ServerCommandSource source = context.getSource();
+		List<OscillationGuard.Report> reports = OscillationGuard.getReports();
+
+		if (!OscillationGuard.isEnabled()) {
+			source.sendFeedback(Text.literal("Oscillation guard is disabled"), false);
+		}
+
+		source.sendFeedback(Text.literal(OscillationGuard.getFrozenCount() + " gates frozen, " + reports.size() + " recent reports"), false);
+
+		for (OscillationGuard.Report report : reports) {
+			source.sendFeedback(Text.literal(" - " + report), false);
+		}
+
+		return reports.size();
+	}
+
+	private static int clear(CommandContext<ServerCommandSource> context) {
+		int count = OscillationGuard.clear();
+		context.getSource().sendFeedback(Text.literal("Unfroze " + count + " gates"), true);
+		return count;
+	}
+
+}
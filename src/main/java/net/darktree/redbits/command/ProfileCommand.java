@@ -0,0 +1,46 @@
+package net.darktree.redbits.command;
+
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.context.CommandContext;
+import net.darktree.redbits.profiler.ComponentProfiler;
+import net.minecraft.server.command.CommandManager;
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.text.Text;
+
+/**
+ * /redbits profile [seconds]|stop, samples the server time used by RedBits components
+ */
+public class ProfileCommand {
+
+	public static LiteralArgumentBuilder<ServerCommandSource> build() {
+		return CommandManager.literal("profile")
+				.then(CommandManager.argument("seconds", IntegerArgumentType.integer(1, 600))
+						.executes(ProfileCommand::start))
+				.then(CommandManager.literal("stop")
+						.executes(ProfileCommand::stop));
+	}
+
+	private static int start(CommandContext<ServerCommandSource> context) {
+		int seconds = IntegerArgumentType.getInteger(context, "seconds");
+
+		if (!ComponentProfiler.start(context.getSource().getServer(), context.getSource(), seconds)) {
+			context.getSource().sendError(Text.literal("A profile is already running"));
+			return 0;
+		}
+
+		context.getSource().sendFeedback(Text.literal("Profiling RedBits components for " + seconds + " seconds"), true);
+		return 1;
+	}
+
+	private static int stop(CommandContext<ServerCommandSource> context) {
+		if (!ComponentProfiler.isActive()) {
+			context.getSource().sendError(Text.literal("No profile is running"));
+			return 0;
+		}
+
+		ComponentProfiler.stop();
+		return 1;
+	}
+
+}
@@ -0,0 +1,21 @@
+package net.darktree.redbits.command;
+
+import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
+import net.minecraft.server.command.CommandManager;
+
+/**
+ * The /redbits server command, each feature adds its own sub-command
+ */
+public class RedBitsCommand {
+
+	public static void register() {
+		CommandRegistrationCallback.EVENT.register((dispatcher, registry, environment) -> dispatcher.register(
+				CommandManager.literal("redbits")
+						.requires(source -> source.hasPermissionLevel(2))
+						.then(FramebufferCommand.build())
+						.then(GuardCommand.build())
+						.then(ProfileCommand.build())
+		));
+	}
+
+}
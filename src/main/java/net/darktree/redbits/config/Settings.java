@@ -8,9 +8,24 @@ import me.shedaniel.autoconfig.annotation.ConfigEntry;
 public class Settings implements ConfigData {
 
 	public boolean disable_burnout = true;
+	public boolean fast_burnout_tracking = false;
+	public boolean oscillation_guard = false;
+	public int oscillation_guard_limit = 100;
 	public boolean jukebox_integration = true;
 	public boolean campfire_integration = true;
 
+	@ConfigEntry.Gui.RequiresRestart
+	public boolean vision_sensor_server_detection = false;
+
+	public boolean compiled_circuits = false;
+	public boolean parallel_circuits = false;
+	public boolean shared_timer_wheel = false;
+	public boolean gate_tick_queue = false;
+	public boolean power_cache = false;
+	public boolean minimal_gate_updates = false;
+	public boolean coalesce_chunk_rebuilds = false;
+	public boolean emitter_minecart_rail_power = false;
+
 	@ConfigEntry.Gui.RequiresRestart
 	public boolean add_guide_to_loot_tables = true;
 
@@ -0,0 +1,109 @@
+package net.darktree.redbits.display;
+
+import net.darktree.redbits.utils.ColorProvider;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads framebuffer frames from files. Images are scaled (nearest neighbour) to the framebuffer size and
+ * mapped to the closest lamp color, raw files (.raw or .bin) hold one color index byte per pixel, row by row,
+ * and can contain multiple frames one after another.
+ */
+public class FrameLoader {
+
+	private static final int[] PALETTE = new int[16];
+
+	static {
+		for (int i = 0; i < PALETTE.length; i ++) {
+			PALETTE[i] = ColorProvider.getColor(i);
+		}
+	}
+
+	public static boolean isRaw(Path path) {
+		String name = path.getFileName().toString().toLowerCase();
+		return name.endsWith(".raw") || name.endsWith(".bin");
+	}
+
+	public static int[] load(Path path, int width, int height, int frame) throws IOException {
+		return isRaw(path) ? loadRaw(path, width, height, frame) : loadImage(path, width, height);
+	}
+
+	/**
+	 * Reads only the bytes of the requested frame, the file is not read as a whole
+	 */
+	private static int[] loadRaw(Path path, int width, int height, int frame) throws IOException {
+		int size = width * height;
+		long offset = (long) frame * size;
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			if (offset + size > channel.size()) {
+				throw new IOException("File contains only " + channel.size() / size + " frames");
+			}
+
+			ByteBuffer buffer = ByteBuffer.allocate(size);
+
+			while (buffer.hasRemaining()) {
+				if (channel.read(buffer, offset + buffer.position()) < 0) {
+					throw new IOException("Unexpected end of file");
+				}
+			}
+
+			int[] colors = new int[size];
+
+			for (int i = 0; i < size; i ++) {
+				colors[i] = buffer.get(i) & 15;
+			}
+
+			return colors;
+		}
+	}
+
+	private static int[] loadImage(Path path, int width, int height) throws IOException {
+		BufferedImage image = ImageIO.read(path.toFile());
+
+		if (image == null) {
+			throw new IOException("Unsupported image format");
+		}
+
+		int[] colors = new int[width * height];
+
+		for (int y = 0; y < height; y ++) {
+			for (int x = 0; x < width; x ++) {
+				colors[y * width + x] = nearest(image.getRGB(x * image.getWidth() / width, y * image.getHeight() / height));
+			}
+		}
+
+		return colors;
+	}
+
+	private static int nearest(int argb) {
+		// transparent pixels turn the lamp off
+		if ((argb >>> 24) < 128) {
+			return 0;
+		}
+
+		int best = 0;
+		int distance = Integer.MAX_VALUE;
+
+		for (int i = 0; i < PALETTE.length; i ++) {
+			int r = ((argb >> 16) & 0xFF) - ((PALETTE[i] >> 16) & 0xFF);
+			int g = ((argb >> 8) & 0xFF) - ((PALETTE[i] >> 8) & 0xFF);
+			int b = (argb & 0xFF) - (PALETTE[i] & 0xFF);
+			int value = r * r + g * g + b * b;
+
+			if (value < distance) {
+				distance = value;
+				best = i;
+			}
+		}
+
+		return best;
+	}
+
+}
@@ -0,0 +1,253 @@
+package net.darktree.redbits.display;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.shorts.ShortIterator;
+import it.unimi.dsi.fastutil.shorts.ShortOpenHashSet;
+import net.darktree.redbits.blocks.AnalogLampBlock;
+import net.fabricmc.fabric.api.networking.v1.PlayerLookup;
+import net.minecraft.block.BlockState;
+import net.minecraft.network.packet.s2c.play.ChunkDeltaUpdateS2CPacket;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.WorldChunk;
+
+import java.util.Arrays;
+
+/**
+ * A flat rectangle of RGB lamps driven as a display. Pixels hold lamp color indices (0 is off),
+ * a frame is pushed as a diff against the previous one: changed lamps are written directly into
+ * their chunk sections and sent as one section delta packet per section, without neighbor updates.
+ * Lamps that are not loaded (or are no longer lamps) are retried with the next frame.
+ *
+ * For vertical displays the pixel row 0 is the top row and columns grow along the positive horizontal axis,
+ * for floor displays columns grow along the X axis and rows along the Z axis.
+ */
+public class Framebuffer {
+
+	private static final int MAX_PIXELS = 256 * 256;
+
+	private static final int UNKNOWN = -1;
+
+	private final ServerWorld world;
+	private final BlockPos origin;
+	private final int width;
+	private final int height;
+	private final boolean vertical;
+	private final boolean alongX;
+
+	private final int[] pixels;
+	private final int[] shown;
+	private boolean dirty;
+
+	Framebuffer(ServerWorld world, BlockPos from, BlockPos to) {
+		int minX = Math.min(from.getX(), to.getX()), maxX = Math.max(from.getX(), to.getX());
+		int minY = Math.min(from.getY(), to.getY()), maxY = Math.max(from.getY(), to.getY());
+		int minZ = Math.min(from.getZ(), to.getZ()), maxZ = Math.max(from.getZ(), to.getZ());
+
+		if (minY == maxY && minX != maxX && minZ != maxZ) {
+			this.vertical = false;
+			this.alongX = true;
+			this.width = maxX - minX + 1;
+			this.height = maxZ - minZ + 1;
+		} else if (minX == maxX || minZ == maxZ) {
+			this.vertical = true;
+			this.alongX = minX != maxX;
+			this.width = alongX ? maxX - minX + 1 : maxZ - minZ + 1;
+			this.height = maxY - minY + 1;
+		} else {
+			throw new IllegalArgumentException("Framebuffer region needs to be flat");
+		}
+
+		// checked before anything is allocated, the region can span the whole world
+		if ((long) width * height > MAX_PIXELS) {
+			throw new IllegalArgumentException("Framebuffer can have at most " + MAX_PIXELS + " pixels");
+		}
+
+		this.world = world;
+		this.origin = new BlockPos(minX, vertical ? maxY : minY, minZ);
+		this.pixels = new int[width * height];
+		this.shown = new int[width * height];
+
+		Arrays.fill(shown, UNKNOWN);
+	}
+
+	public ServerWorld getWorld() {
+		return world;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public boolean contains(BlockPos pos) {
+		int x = pos.getX() - origin.getX();
+		int y = origin.getY() - pos.getY();
+		int z = pos.getZ() - origin.getZ();
+
+		if (vertical) {
+			return y >= 0 && y < height && (alongX ? z == 0 && x >= 0 && x < width : x == 0 && z >= 0 && z < width);
+		}
+
+		return y == 0 && x >= 0 && x < width && z >= 0 && z < height;
+	}
+
+	public void setPixel(int x, int y, int color) {
+		pixels[y * width + x] = Math.max(0, Math.min(15, color));
+		dirty = true;
+	}
+
+	public int getPixel(int x, int y) {
+		return pixels[y * width + x];
+	}
+
+	public void fill(int color) {
+		Arrays.fill(pixels, Math.max(0, Math.min(15, color)));
+		dirty = true;
+	}
+
+	/**
+	 * Replaces the whole frame, colors are given row by row
+	 */
+	public void setFrame(int[] colors) {
+		for (int i = 0; i < pixels.length && i < colors.length; i ++) {
+			pixels[i] = Math.max(0, Math.min(15, colors[i]));
+		}
+
+		dirty = true;
+	}
+
+	public boolean isDirty() {
+		return dirty;
+	}
+
+	/**
+	 * Forget what is shown, so that the next push rewrites every lamp
+	 */
+	public void invalidate() {
+		Arrays.fill(shown, UNKNOWN);
+		dirty = true;
+	}
+
+	private BlockPos.Mutable locate(BlockPos.Mutable pos, int x, int y) {
+		if (!vertical) {
+			return pos.set(origin.getX() + x, origin.getY(), origin.getZ() + y);
+		}
+
+		return alongX ? pos.set(origin.getX() + x, origin.getY() - y, origin.getZ()) : pos.set(origin.getX(), origin.getY() - y, origin.getZ() + x);
+	}
+
+	/**
+	 * Writes all pixels that differ from the shown frame into the world,
+	 * returns the number of lamps changed
+	 */
+	public int push() {
+		dirty = false;
+
+		Long2ObjectOpenHashMap<ShortOpenHashSet> sections = new Long2ObjectOpenHashMap<>();
+		BlockPos.Mutable pos = new BlockPos.Mutable();
+
+		for (int y = 0; y < height; y ++) {
+			for (int x = 0; x < width; x ++) {
+				int index = y * width + x;
+
+				if (pixels[index] != shown[index]) {
+					locate(pos, x, y);
+					sections.computeIfAbsent(ChunkSectionPos.toLong(pos), key -> new ShortOpenHashSet()).add(ChunkSectionPos.packLocal(pos));
+
+					// assume it will be written, corrected below if it can't be
+					shown[index] = pixels[index];
+				}
+			}
+		}
+
+		int changed = 0;
+
+		for (Long2ObjectMap.Entry<ShortOpenHashSet> entry : sections.long2ObjectEntrySet()) {
+			changed += write(ChunkSectionPos.from(entry.getLongKey()), entry.getValue(), pos);
+		}
+
+		return changed;
+	}
+
+	private int write(ChunkSectionPos sectionPos, ShortOpenHashSet positions, BlockPos.Mutable pos) {
+		WorldChunk chunk = world.getChunkManager().getWorldChunk(sectionPos.getSectionX(), sectionPos.getSectionZ());
+
+		if (chunk == null) {
+			for (ShortIterator iterator = positions.iterator(); iterator.hasNext(); ) {
+				short packed = iterator.nextShort();
+				forget(sectionPos.unpackBlockX(packed), sectionPos.unpackBlockY(packed), sectionPos.unpackBlockZ(packed));
+			}
+
+			return 0;
+		}
+
+		ChunkSection section = chunk.getSection(chunk.sectionCoordToIndex(sectionPos.getSectionY()));
+		ShortOpenHashSet written = new ShortOpenHashSet(positions.size());
+
+		for (ShortIterator iterator = positions.iterator(); iterator.hasNext(); ) {
+			short packed = iterator.nextShort();
+			int x = ChunkSectionPos.unpackLocalX(packed);
+			int y = ChunkSectionPos.unpackLocalY(packed);
+			int z = ChunkSectionPos.unpackLocalZ(packed);
+
+			pos.set(sectionPos.unpackBlockX(packed), sectionPos.unpackBlockY(packed), sectionPos.unpackBlockZ(packed));
+			BlockState state = section.getBlockState(x, y, z);
+
+			if (!(state.getBlock() instanceof AnalogLampBlock)) {
+				forget(pos.getX(), pos.getY(), pos.getZ());
+				continue;
+			}
+
+			int color = pixels[indexOf(pos)];
+			int previous = state.get(AnalogLampBlock.POWER);
+
+			if (previous == color) {
+				continue;
+			}
+
+			section.setBlockState(x, y, z, state.with(AnalogLampBlock.POWER, color));
+			written.add(packed);
+
+			// lamps only emit light while on
+			if ((previous == 0) != (color == 0)) {
+				world.getChunkManager().getLightingProvider().checkBlock(pos);
+			}
+		}
+
+		if (written.isEmpty()) {
+			return 0;
+		}
+
+		chunk.setNeedsSaving(true);
+		ChunkDeltaUpdateS2CPacket packet = new ChunkDeltaUpdateS2CPacket(sectionPos, written, section);
+
+		for (ServerPlayerEntity player : PlayerLookup.tracking(world, chunk.getPos())) {
+			player.networkHandler.sendPacket(packet);
+		}
+
+		return written.size();
+	}
+
+	private int indexOf(BlockPos pos) {
+		if (!vertical) {
+			return (pos.getZ() - origin.getZ()) * width + pos.getX() - origin.getX();
+		}
+
+		int x = alongX ? pos.getX() - origin.getX() : pos.getZ() - origin.getZ();
+		return (origin.getY() - pos.getY()) * width + x;
+	}
+
+	private void forget(int x, int y, int z) {
+		shown[indexOf(new BlockPos(x, y, z))] = UNKNOWN;
+		dirty = true;
+	}
+
+}
@@ -0,0 +1,71 @@
+package net.darktree.redbits.display;
+
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Named framebuffers of the running server, dirty framebuffers are pushed at the end of every server tick
+ */
+public class Framebuffers {
+
+	private static final Map<String, Framebuffer> BUFFERS = new HashMap<>();
+
+	public static void register() {
+		ServerTickEvents.END_SERVER_TICK.register(server -> {
+			for (Framebuffer buffer : BUFFERS.values()) {
+				if (buffer.isDirty()) {
+					buffer.push();
+				}
+			}
+		});
+
+		ServerLifecycleEvents.SERVER_STOPPED.register(server -> BUFFERS.clear());
+	}
+
+	/**
+	 * Binds the flat region between the given corners to a new framebuffer, replacing any framebuffer
+	 * with the same name. Throws if the region is not flat or too large, nothing is replaced then.
+	 */
+	public static Framebuffer bind(String name, ServerWorld world, BlockPos from, BlockPos to) {
+		Framebuffer buffer = new Framebuffer(world, from, to);
+		BUFFERS.put(name, buffer);
+		return buffer;
+	}
+
+	public static boolean unbind(String name) {
+		return BUFFERS.remove(name) != null;
+	}
+
+	public static Framebuffer get(String name) {
+		return BUFFERS.get(name);
+	}
+
+	public static Collection<String> getNames() {
+		return BUFFERS.keySet();
+	}
+
+	/**
+	 * Checks if the given lamp is driven by a framebuffer, such lamps ignore redstone
+	 */
+	public static boolean isBound(World world, BlockPos pos) {
+		if (BUFFERS.isEmpty()) {
+			return false;
+		}
+
+		for (Framebuffer buffer : BUFFERS.values()) {
+			if (buffer.getWorld() == world && buffer.contains(pos)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+}
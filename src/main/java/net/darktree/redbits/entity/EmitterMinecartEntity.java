@@ -2,6 +2,8 @@ package net.darktree.redbits.entity;
 
 import net.darktree.redbits.RedBits;
 import net.darktree.redbits.blocks.EmitterBlock;
+import net.darktree.redbits.utils.CartPower;
+import net.minecraft.block.AbstractRailBlock;
 import net.minecraft.block.BlockState;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.EntityType;
@@ -17,6 +19,7 @@ import net.minecraft.nbt.NbtCompound;
 import net.minecraft.nbt.NbtElement;
 import net.minecraft.util.ActionResult;
 import net.minecraft.util.Hand;
+import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.GameRules;
 import net.minecraft.world.World;
 
@@ -25,6 +28,10 @@ public class EmitterMinecartEntity extends AbstractMinecartEntity {
 	private static final TrackedData<Integer> POWER = DataTracker.registerData(EmitterMinecartEntity.class, TrackedDataHandlerRegistry.INTEGER);
 	public static AbstractMinecartEntity.Type EMITTER = AbstractMinecartEntity.Type.valueOf("EMITTER");
 
+	// position and level this cart currently powers, see CartPower
+	private long poweredPos = CartPower.NONE;
+	private int poweredLevel;
+
 	public EmitterMinecartEntity(EntityType<Entity> entity, World world) {
 		super(entity, world);
 	}
@@ -42,6 +49,49 @@ public class EmitterMinecartEntity extends AbstractMinecartEntity {
 		this.setVelocity(this.getVelocity().multiply(f, 0.0, f));
 	}
 
+	@Override
+	public void tick() {
+		super.tick();
+
+		if (!this.world.isClient && !this.isRemoved()) {
+			updateRailPower();
+		}
+	}
+
+	private void updateRailPower() {
+		long pos = CartPower.NONE;
+		int level = 0;
+
+		if (CartPower.isEnabled() && getPower() > 0) {
+			BlockPos blockPos = this.getBlockPos();
+
+			// same as the rail lookup of the minecart movement code
+			if (!AbstractRailBlock.isRail(this.world, blockPos) && AbstractRailBlock.isRail(this.world, blockPos.down())) {
+				blockPos = blockPos.down();
+			}
+
+			pos = blockPos.asLong();
+			level = getPower();
+		}
+
+		if (pos != poweredPos || level != poweredLevel) {
+			CartPower.move(this.world, poweredPos, poweredLevel, pos, level, true);
+			poweredPos = pos;
+			poweredLevel = level;
+		}
+	}
+
+	/**
+	 * Removes the power of this cart, called when the cart is removed or unloaded
+	 */
+	public void clearRailPower(boolean update) {
+		if (poweredPos != CartPower.NONE) {
+			CartPower.move(this.world, poweredPos, poweredLevel, CartPower.NONE, 0, update);
+			poweredPos = CartPower.NONE;
+			poweredLevel = 0;
+		}
+	}
+
 	@Override
 	public AbstractMinecartEntity.Type getMinecartType() {
 		return EMITTER;
@@ -0,0 +1,42 @@
+package net.darktree.redbits.mixin;
+
+import net.darktree.redbits.profiler.ComponentProfiler;
+import net.minecraft.block.AbstractBlock;
+import net.minecraft.block.Block;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.random.Random;
+import net.minecraft.world.World;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(AbstractBlock.AbstractBlockState.class)
+abstract public class AbstractBlockStateMixin {
+
+    @Shadow
+    public abstract Block getBlock();
+
+    @Inject(at = @At("HEAD"), method = "scheduledTick(Lnet/minecraft/server/world/ServerWorld;Lnet/minecraft/util/math/BlockPos;Lnet/minecraft/util/math/random/Random;)V")
+    private void scheduledTickHead(ServerWorld world, BlockPos pos, Random random, CallbackInfo info) {
+        ComponentProfiler.enter(world, pos, getBlock(), ComponentProfiler.Kind.SCHEDULED_TICK);
+    }
+
+    @Inject(at = @At("RETURN"), method = "scheduledTick(Lnet/minecraft/server/world/ServerWorld;Lnet/minecraft/util/math/BlockPos;Lnet/minecraft/util/math/random/Random;)V")
+    private void scheduledTickReturn(ServerWorld world, BlockPos pos, Random random, CallbackInfo info) {
+        ComponentProfiler.exit(world);
+    }
+
+    @Inject(at = @At("HEAD"), method = "neighborUpdate(Lnet/minecraft/world/World;Lnet/minecraft/util/math/BlockPos;Lnet/minecraft/block/Block;Lnet/minecraft/util/math/BlockPos;Z)V")
+    private void neighborUpdateHead(World world, BlockPos pos, Block block, BlockPos fromPos, boolean notify, CallbackInfo info) {
+        ComponentProfiler.enter(world, pos, getBlock(), ComponentProfiler.Kind.NEIGHBOR_UPDATE);
+    }
+
+    @Inject(at = @At("RETURN"), method = "neighborUpdate(Lnet/minecraft/world/World;Lnet/minecraft/util/math/BlockPos;Lnet/minecraft/block/Block;Lnet/minecraft/util/math/BlockPos;Z)V")
+    private void neighborUpdateReturn(World world, BlockPos pos, Block block, BlockPos fromPos, boolean notify, CallbackInfo info) {
+        ComponentProfiler.exit(world);
+    }
+
+}
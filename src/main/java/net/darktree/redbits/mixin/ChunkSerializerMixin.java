@@ -0,0 +1,36 @@
+package net.darktree.redbits.mixin;
+
+import net.darktree.redbits.utils.GateTickQueue;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.ChunkSerializer;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.ProtoChunk;
+import net.minecraft.world.chunk.ReadOnlyChunk;
+import net.minecraft.world.chunk.WorldChunk;
+import net.minecraft.world.poi.PointOfInterestStorage;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+@Mixin(ChunkSerializer.class)
+abstract public class ChunkSerializerMixin {
+
+    @Inject(at = @At("RETURN"), method = "serialize(Lnet/minecraft/server/world/ServerWorld;Lnet/minecraft/world/chunk/Chunk;)Lnet/minecraft/nbt/NbtCompound;")
+    private static void serialize(ServerWorld world, Chunk chunk, CallbackInfoReturnable<NbtCompound> info) {
+        if (chunk instanceof WorldChunk) {
+            GateTickQueue.write(world, chunk.getPos(), info.getReturnValue());
+        }
+    }
+
+    // gate ticks are only scheduled in full chunks, which are loaded as a read only wrapper of the world chunk
+    @Inject(at = @At("RETURN"), method = "deserialize(Lnet/minecraft/server/world/ServerWorld;Lnet/minecraft/world/poi/PointOfInterestStorage;Lnet/minecraft/util/math/ChunkPos;Lnet/minecraft/nbt/NbtCompound;)Lnet/minecraft/world/chunk/ProtoChunk;")
+    private static void deserialize(ServerWorld world, PointOfInterestStorage poi, ChunkPos pos, NbtCompound nbt, CallbackInfoReturnable<ProtoChunk> info) {
+        if (info.getReturnValue() instanceof ReadOnlyChunk chunk) {
+            GateTickQueue.read(chunk.getWrappedChunk(), nbt);
+        }
+    }
+
+}
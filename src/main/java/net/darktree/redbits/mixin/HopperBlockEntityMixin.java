@@ -1,14 +1,20 @@
 package net.darktree.redbits.mixin;
 
 import net.darktree.redbits.RedBits;
+import net.darktree.redbits.profiler.ComponentProfiler;
 import net.darktree.redbits.utils.CampfireInventory;
+import net.darktree.redbits.utils.HopperAdapterCache;
 import net.darktree.redbits.utils.JukeboxInventory;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.Blocks;
 import net.minecraft.block.CampfireBlock;
+import net.minecraft.block.entity.BlockEntity;
+import net.minecraft.block.entity.CampfireBlockEntity;
 import net.minecraft.block.entity.HopperBlockEntity;
+import net.minecraft.block.entity.JukeboxBlockEntity;
 import net.minecraft.inventory.Inventory;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.MathHelper;
 import net.minecraft.world.World;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.injection.At;
@@ -20,16 +26,51 @@ abstract public class HopperBlockEntityMixin {
 
     @Inject(at = @At("HEAD"), method = "getInventoryAt(Lnet/minecraft/world/World;DDD)Lnet/minecraft/inventory/Inventory;", cancellable = true)
     private static void getInventoryAt(World world, double x, double y, double z, CallbackInfoReturnable<Inventory> info) {
-        BlockPos pos = new BlockPos(x, y, z);
+        long start = ComponentProfiler.start();
+        Inventory inventory = getAdapterAt(world, x, y, z);
+
+        if (inventory != null) {
+            info.setReturnValue(inventory);
+
+            if (start != 0) {
+                BlockPos pos = new BlockPos(MathHelper.floor(x), MathHelper.floor(y), MathHelper.floor(z));
+                ComponentProfiler.record(world, pos, world.getBlockState(pos).getBlock(), ComponentProfiler.Kind.HOPPER_ADAPTER, start);
+            }
+        }
+    }
+
+    private static Inventory getAdapterAt(World world, double x, double y, double z) {
+        long key = BlockPos.asLong(MathHelper.floor(x), MathHelper.floor(y), MathHelper.floor(z));
+        Inventory cached = HopperAdapterCache.get(world, key);
+
+        if (cached != null) {
+            if (cached instanceof JukeboxInventory ? RedBits.CONFIG.jukebox_integration : RedBits.CONFIG.campfire_integration) {
+                return cached;
+            }
+
+            HopperAdapterCache.invalidate(world, key);
+        }
+
+        BlockPos pos = BlockPos.fromLong(key);
         BlockState state = world.getBlockState(pos);
 
         if (RedBits.CONFIG.jukebox_integration && state.getBlock() == Blocks.JUKEBOX) {
-            info.setReturnValue(new JukeboxInventory(world, pos));
+            BlockEntity entity = world.getBlockEntity(pos);
+
+            if (entity instanceof JukeboxBlockEntity jukebox) {
+                return HopperAdapterCache.put(world, key, new JukeboxInventory(world, pos, jukebox));
+            }
         }
 
         if (RedBits.CONFIG.campfire_integration && state.getBlock() instanceof CampfireBlock) {
-            info.setReturnValue(new CampfireInventory(world, pos));
+            BlockEntity entity = world.getBlockEntity(pos);
+
+            if (entity instanceof CampfireBlockEntity campfire) {
+                return HopperAdapterCache.put(world, key, new CampfireInventory(campfire));
+            }
         }
+
+        return null;
     }
 
 }
@@ -1,6 +1,10 @@
 package net.darktree.redbits.mixin;
 
 import net.darktree.redbits.RedBits;
+import net.darktree.redbits.profiler.ComponentProfiler;
+import net.darktree.redbits.profiler.JukeboxReplayEvent;
+import net.darktree.redbits.utils.JukeboxEvents;
+import net.darktree.redbits.utils.PowerCache;
 import net.minecraft.block.*;
 import net.minecraft.block.entity.JukeboxBlockEntity;
 import net.minecraft.item.Item;
@@ -11,7 +15,6 @@ import net.minecraft.state.property.Properties;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.random.Random;
 import net.minecraft.world.World;
-import net.minecraft.world.WorldEvents;
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
@@ -39,11 +42,11 @@ abstract public class JukeboxBlockMixin extends BlockWithEntity {
     @Override
     public void neighborUpdate(BlockState state, World world, BlockPos pos, Block block, BlockPos fromPos, boolean notify) {
         if (!world.isClient) {
-            boolean power = world.isReceivingRedstonePower( pos );
+            boolean power = PowerCache.isReceivingPower( world, pos );
             if (power) {
                 if (!state.get(POWERED) && state.get(JukeboxBlock.HAS_RECORD)) {
-                    if (RedBits.CONFIG.jukebox_integration) {
-                        world.syncWorldEvent(WorldEvents.MUSIC_DISC_PLAYED, pos, 0);
+                    // the replay start stops the playing disc by itself, no separate stop is sent
+                    if (RedBits.CONFIG.jukebox_integration && JukeboxEvents.canRestart(world, pos)) {
                         world.scheduleBlockTick(pos, this, 1);
                     }
                 }
@@ -60,7 +63,13 @@ abstract public class JukeboxBlockMixin extends BlockWithEntity {
         JukeboxBlockEntity jukeboxBlockEntity = (JukeboxBlockEntity) world.getBlockEntity( pos );
         if (jukeboxBlockEntity != null) {
             if (RedBits.CONFIG.jukebox_integration) {
-                world.syncWorldEvent(WorldEvents.MUSIC_DISC_PLAYED, pos, Item.getRawId(jukeboxBlockEntity.getRecord().getItem()));
+                JukeboxReplayEvent event = JukeboxReplayEvent.start();
+                JukeboxEvents.play(world, pos, Item.getRawId(jukeboxBlockEntity.getRecord().getItem()));
+                ComponentProfiler.count(world, ComponentProfiler.Kind.JUKEBOX_EVENT);
+
+                if (event != null) {
+                    event.end(pos, this);
+                }
             }
         } else {
             RedBits.LOGGER.warn("Unable to trigger sound event, as the given Jukebox doesn't have a BlockEntity attached!");
@@ -1,6 +1,7 @@
 package net.darktree.redbits.mixin;
 
 import net.darktree.redbits.RedBits;
+import net.darktree.redbits.utils.BurnoutTracker;
 import net.minecraft.block.RedstoneTorchBlock;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
@@ -15,6 +16,7 @@ abstract public class RedstoneTorchBlockMixin {
     @Inject(at = @At("HEAD"), method = "isBurnedOut(Lnet/minecraft/world/World;Lnet/minecraft/util/math/BlockPos;Z)Z", cancellable = true)
     private static void isBurnedOut(World world, BlockPos pos, boolean addNew, CallbackInfoReturnable<Boolean> info) {
         if (RedBits.CONFIG.disable_burnout) info.setReturnValue(false);
+        else if (BurnoutTracker.isEnabled()) info.setReturnValue(BurnoutTracker.isBurnedOut(world, pos, addNew));
     }
 
 }
@@ -0,0 +1,57 @@
+package net.darktree.redbits.mixin;
+
+import net.darktree.redbits.utils.OccupancyIndex;
+import net.minecraft.entity.Entity;
+import net.minecraft.world.entity.EntityLike;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(targets = "net.minecraft.server.world.ServerEntityManager$Listener")
+abstract public class ServerEntityManagerListenerMixin {
+
+    @Shadow
+    @Final
+    private EntityLike entity;
+
+    @Shadow
+    private long sectionPos;
+
+    @Unique
+    private OccupancyIndex.Category category;
+
+    @Unique
+    private long indexedSection;
+
+    @Inject(at = @At("TAIL"), method = "<init>")
+    private void init(CallbackInfo info) {
+        category = OccupancyIndex.Category.of(entity);
+
+        if (category != null) {
+            indexedSection = sectionPos;
+            OccupancyIndex.add(((Entity) entity).world, indexedSection, category);
+        }
+    }
+
+    @Inject(at = @At("TAIL"), method = "updateEntityPosition()V")
+    private void updateEntityPosition(CallbackInfo info) {
+        if (category != null && indexedSection != sectionPos) {
+            OccupancyIndex.remove(((Entity) entity).world, indexedSection, category);
+            indexedSection = sectionPos;
+            OccupancyIndex.add(((Entity) entity).world, indexedSection, category);
+        }
+    }
+
+    @Inject(at = @At("HEAD"), method = "remove(Lnet/minecraft/entity/Entity$RemovalReason;)V")
+    private void remove(Entity.RemovalReason reason, CallbackInfo info) {
+        if (category != null) {
+            OccupancyIndex.remove(((Entity) entity).world, indexedSection, category);
+            category = null;
+        }
+    }
+
+}
@@ -0,0 +1,27 @@
+package net.darktree.redbits.mixin;
+
+import net.darktree.redbits.utils.BlockTickPhase;
+import net.minecraft.server.world.ServerWorld;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+import java.util.function.BooleanSupplier;
+
+@Mixin(ServerWorld.class)
+abstract public class ServerWorldMixin {
+
+    // right before the vanilla block ticks
+    @Inject(at = @At(value = "INVOKE_STRING", target = "Lnet/minecraft/util/profiler/Profiler;push(Ljava/lang/String;)V", args = "ldc=blockTicks"), method = "tick(Ljava/util/function/BooleanSupplier;)V")
+    private void tickBlocks(BooleanSupplier shouldKeepTicking, CallbackInfo info) {
+        BlockTickPhase.begin((ServerWorld) (Object) this);
+    }
+
+    // right after the vanilla block ticks, before the fluid ticks
+    @Inject(at = @At(value = "INVOKE_STRING", target = "Lnet/minecraft/util/profiler/Profiler;swap(Ljava/lang/String;)V", args = "ldc=fluidTicks"), method = "tick(Ljava/util/function/BooleanSupplier;)V")
+    private void tick(BooleanSupplier shouldKeepTicking, CallbackInfo info) {
+        BlockTickPhase.end((ServerWorld) (Object) this);
+    }
+
+}
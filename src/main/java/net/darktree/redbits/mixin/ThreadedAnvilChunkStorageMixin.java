@@ -0,0 +1,32 @@
+package net.darktree.redbits.mixin;
+
+import net.darktree.redbits.circuit.CircuitEngine;
+import net.darktree.redbits.utils.TimerWheel;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.server.world.ThreadedAnvilChunkStorage;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.WorldChunk;
+import org.spongepowered.asm.mixin.Final;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+@Mixin(ThreadedAnvilChunkStorage.class)
+abstract public class ThreadedAnvilChunkStorageMixin {
+
+    @Shadow
+    @Final
+    ServerWorld world;
+
+    @Inject(at = @At("HEAD"), method = "save(Lnet/minecraft/world/chunk/Chunk;)Z")
+    private void save(Chunk chunk, CallbackInfoReturnable<Boolean> info) {
+        if (chunk instanceof WorldChunk) {
+            // clusters hand their pending ticks over to the gate tick queue, which is written with the chunk NBT
+            CircuitEngine.persist(world, chunk.getPos());
+            TimerWheel.persist(world, chunk.getPos());
+        }
+    }
+
+}
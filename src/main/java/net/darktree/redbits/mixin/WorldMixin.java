@@ -0,0 +1,86 @@
+package net.darktree.redbits.mixin;
+
+import net.darktree.redbits.circuit.CircuitEngine;
+import net.darktree.redbits.profiler.ComponentProfiler;
+import net.darktree.redbits.utils.CartPower;
+import net.darktree.redbits.utils.PowerCache;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.world.World;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+@Mixin(World.class)
+abstract public class WorldMixin {
+
+    @Inject(at = @At("HEAD"), method = "setBlockState(Lnet/minecraft/util/math/BlockPos;Lnet/minecraft/block/BlockState;II)Z")
+    private void setBlockState(BlockPos pos, BlockState state, int flags, int maxUpdateDepth, CallbackInfoReturnable<Boolean> info) {
+        CircuitEngine.onBlockChange((World) (Object) this, pos, state);
+        PowerCache.invalidate((World) (Object) this, pos);
+        ComponentProfiler.enterNested((World) (Object) this, ComponentProfiler.Kind.SET_BLOCK_STATE);
+    }
+
+    @Inject(at = @At("RETURN"), method = "setBlockState(Lnet/minecraft/util/math/BlockPos;Lnet/minecraft/block/BlockState;II)Z")
+    private void setBlockStateReturn(BlockPos pos, BlockState state, int flags, int maxUpdateDepth, CallbackInfoReturnable<Boolean> info) {
+        ComponentProfiler.exit((World) (Object) this);
+    }
+
+    // emitter minecarts act as power sources for the rails they are on, see CartPower
+
+    @Inject(at = @At("RETURN"), method = "getEmittedRedstonePower(Lnet/minecraft/util/math/BlockPos;Lnet/minecraft/util/math/Direction;)I", cancellable = true)
+    private void getEmittedRedstonePower(BlockPos pos, Direction direction, CallbackInfoReturnable<Integer> info) {
+        int power = CartPower.getEmittedPower((World) (Object) this, pos, direction, false);
+
+        if (power > info.getReturnValueI()) {
+            info.setReturnValue(power);
+        }
+    }
+
+    @Inject(at = @At("RETURN"), method = "getStrongRedstonePower(Lnet/minecraft/util/math/BlockPos;Lnet/minecraft/util/math/Direction;)I", cancellable = true)
+    private void getStrongRedstonePower(BlockPos pos, Direction direction, CallbackInfoReturnable<Integer> info) {
+        int power = CartPower.getEmittedPower((World) (Object) this, pos, direction, true);
+
+        if (power > info.getReturnValueI()) {
+            info.setReturnValue(power);
+        }
+    }
+
+    @Inject(at = @At("RETURN"), method = "isReceivingRedstonePower(Lnet/minecraft/util/math/BlockPos;)Z", cancellable = true)
+    private void isReceivingRedstonePower(BlockPos pos, CallbackInfoReturnable<Boolean> info) {
+        if (!info.getReturnValueZ() && CartPower.getPower((World) (Object) this, pos) > 0) {
+            info.setReturnValue(true);
+        }
+    }
+
+    @Inject(at = @At("RETURN"), method = "getReceivedRedstonePower(Lnet/minecraft/util/math/BlockPos;)I", cancellable = true)
+    private void getReceivedRedstonePower(BlockPos pos, CallbackInfoReturnable<Integer> info) {
+        int power = CartPower.getPower((World) (Object) this, pos);
+
+        if (power > info.getReturnValueI()) {
+            info.setReturnValue(power);
+        }
+    }
+
+    // some emitters (like comparators) change their output without a block state change, but always update neighbors
+
+    @Inject(at = @At("HEAD"), method = "updateNeighborsAlways(Lnet/minecraft/util/math/BlockPos;Lnet/minecraft/block/Block;)V")
+    private void updateNeighborsAlways(BlockPos pos, Block block, CallbackInfo info) {
+        PowerCache.invalidate((World) (Object) this, pos);
+    }
+
+    @Inject(at = @At("HEAD"), method = "updateNeighborsExcept(Lnet/minecraft/util/math/BlockPos;Lnet/minecraft/block/Block;Lnet/minecraft/util/math/Direction;)V")
+    private void updateNeighborsExcept(BlockPos pos, Block block, Direction direction, CallbackInfo info) {
+        PowerCache.invalidate((World) (Object) this, pos);
+    }
+
+    @Inject(at = @At("HEAD"), method = "updateNeighbor(Lnet/minecraft/util/math/BlockPos;Lnet/minecraft/block/Block;Lnet/minecraft/util/math/BlockPos;)V")
+    private void updateNeighbor(BlockPos pos, Block block, BlockPos sourcePos, CallbackInfo info) {
+        PowerCache.invalidate((World) (Object) this, sourcePos);
+    }
+
+}
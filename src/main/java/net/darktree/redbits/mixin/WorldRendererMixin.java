@@ -0,0 +1,35 @@
+package net.darktree.redbits.mixin;
+
+import net.darktree.redbits.client.RebuildBenchmark;
+import net.darktree.redbits.client.RebuildCoalescer;
+import net.minecraft.block.BlockState;
+import net.minecraft.client.render.WorldRenderer;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.BlockView;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+@Mixin(WorldRenderer.class)
+abstract public class WorldRendererMixin {
+
+    @Inject(at = @At("HEAD"), method = "updateBlock(Lnet/minecraft/world/BlockView;Lnet/minecraft/util/math/BlockPos;Lnet/minecraft/block/BlockState;Lnet/minecraft/block/BlockState;I)V", cancellable = true)
+    private void updateBlock(BlockView world, BlockPos pos, BlockState oldState, BlockState newState, int flags, CallbackInfo info) {
+        if (RebuildCoalescer.defer(pos, oldState, newState, flags)) {
+            info.cancel();
+        }
+    }
+
+    @Inject(at = @At("HEAD"), method = "render")
+    private void render(CallbackInfo info) {
+        RebuildBenchmark.onFrame();
+        RebuildCoalescer.flush((WorldRenderer) (Object) this);
+    }
+
+    @Inject(at = @At("HEAD"), method = "scheduleChunkRender(IIIZ)V")
+    private void scheduleChunkRender(int x, int y, int z, boolean important, CallbackInfo info) {
+        RebuildCoalescer.onSchedule();
+    }
+
+}
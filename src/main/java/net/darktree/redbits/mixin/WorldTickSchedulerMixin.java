@@ -0,0 +1,30 @@
+package net.darktree.redbits.mixin;
+
+import net.darktree.redbits.profiler.ComponentProfiler;
+import net.darktree.redbits.utils.BlockTickPhase;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.tick.OrderedTick;
+import net.minecraft.world.tick.WorldTickScheduler;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+import org.spongepowered.asm.mixin.injection.callback.LocalCapture;
+
+import java.util.function.BiConsumer;
+
+@Mixin(WorldTickScheduler.class)
+abstract public class WorldTickSchedulerMixin {
+
+    @Inject(at = @At("HEAD"), method = "scheduleTick(Lnet/minecraft/world/tick/OrderedTick;)V")
+    private void scheduleTick(OrderedTick<?> tick, CallbackInfo info) {
+        ComponentProfiler.countScheduled();
+    }
+
+    // RedBits ticks that sort before this one are run first, this only does something in the block tick phase
+    @Inject(at = @At(value = "INVOKE", target = "Ljava/util/function/BiConsumer;accept(Ljava/lang/Object;Ljava/lang/Object;)V"), method = "runTicks(Ljava/util/function/BiConsumer;)V", locals = LocalCapture.CAPTURE_FAILHARD)
+    private void runTicks(BiConsumer<BlockPos, ?> ticker, CallbackInfo info, OrderedTick<?> tick) {
+        BlockTickPhase.before(tick.triggerTick(), tick.priority().getIndex(), tick.subTickOrder());
+    }
+
+}
@@ -1,47 +1,183 @@
 package net.darktree.redbits.network;
 
-import io.netty.buffer.Unpooled;
+import it.unimi.dsi.fastutil.longs.LongLinkedOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import net.darktree.redbits.blocks.VisionSensorBlock;
-import net.fabricmc.fabric.api.network.ClientSidePacketRegistry;
-import net.fabricmc.fabric.api.network.PacketContext;
-import net.fabricmc.fabric.api.network.ServerSidePacketRegistry;
+import net.darktree.redbits.utils.SensorIndex;
+import net.fabricmc.fabric.api.client.networking.v1.ClientPlayNetworking;
+import net.fabricmc.fabric.api.networking.v1.PacketByteBufs;
+import net.fabricmc.fabric.api.networking.v1.PacketSender;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.network.PacketByteBuf;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayNetworkHandler;
+import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
 
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Look-at events from one client tick are sent in a single packet, the first position
+ * is written in full and every next one as a zigzag encoded delta from the previous one.
+ * The server drops duplicates, applies a per-player rate limit and triggers
+ * all sensors from a packet in one main-thread task.
+ */
 public class C2SLookAtPacket {
 
+	// maximum number of positions accepted from one packet
+	private static final int MAX_BATCH = 64;
+
+	// maximum number of sensors a single player can trigger in one server tick
+	private static final int MAX_PER_TICK = 32;
+
 	private final Identifier id;
+	private final LongLinkedOpenHashSet pending = new LongLinkedOpenHashSet();
+	private final Map<PlayerEntity, RateLimit> limits = new WeakHashMap<>();
+	private final Map<World, LongOpenHashSet> triggered = new WeakHashMap<>();
+	private int triggeredTick = -1;
 
 	public C2SLookAtPacket(Identifier id) {
 		this.id = id;
 	}
 
 	public void register() {
-		ServerSidePacketRegistry.INSTANCE.register(id, this::read);
+		ServerPlayNetworking.registerGlobalReceiver(id, this::read);
 	}
 
-	public void read(PacketContext context, PacketByteBuf buffer) {
-		BlockPos pos = buffer.readBlockPos();
-		context.getTaskQueue().execute(() -> apply(context.getPlayer(), pos));
+	public void read(MinecraftServer server, ServerPlayerEntity player, ServerPlayNetworkHandler handler, PacketByteBuf buffer, PacketSender sender) {
+		if (SensorIndex.isEnabled()) {
+			return; // sensors are detected by the server, client events are not trusted
+		}
+
+		int count = Math.min(buffer.readVarInt(), MAX_BATCH);
+
+		if (count <= 0) {
+			return;
+		}
+
+		LongOpenHashSet positions = new LongOpenHashSet(count);
+		int x = 0, y = 0, z = 0;
+
+		for (int i = 0; i < count && buffer.isReadable(); i ++) {
+			if (i == 0) {
+				BlockPos pos = buffer.readBlockPos();
+				x = pos.getX();
+				y = pos.getY();
+				z = pos.getZ();
+			} else {
+				x += decode(buffer.readVarInt());
+				y += decode(buffer.readVarInt());
+				z += decode(buffer.readVarInt());
+			}
+
+			positions.add(BlockPos.asLong(x, y, z));
+		}
+
+		server.execute(() -> apply(server, player, positions));
 	}
 
-	private void apply(PlayerEntity player, BlockPos pos) {
+	private void apply(MinecraftServer server, PlayerEntity player, LongOpenHashSet positions) {
 		if( player != null && player.world != null ) {
 			World world = player.world;
+			int tick = server.getTicks();
 
-			if (world.isChunkLoaded(pos) && player.getBlockPos().isWithinDistance(pos, 130)) {
-				VisionSensorBlock.trigger(world, pos);
+			if (triggeredTick != tick) {
+				triggeredTick = tick;
+				triggered.values().forEach(LongOpenHashSet::clear);
+			}
+
+			// positions are deduplicated per world, the same coordinates in another dimension are a different sensor
+			LongOpenHashSet seen = triggered.computeIfAbsent(world, key -> new LongOpenHashSet());
+			RateLimit limit = limits.computeIfAbsent(player, key -> new RateLimit());
+			BlockPos.Mutable pos = new BlockPos.Mutable();
+
+			for (long packed : positions) {
+				pos.set(packed);
+
+				if (!world.isChunkLoaded(pos) || !player.getBlockPos().isWithinDistance(pos, 130) || seen.contains(packed)) {
+					continue;
+				}
+
+				// only accepted positions count towards the limit
+				if (!limit.take(tick)) {
+					break;
+				}
+
+				seen.add(packed);
+				VisionSensorBlock.trigger(world, pos.toImmutable());
 			}
 		}
 	}
 
 	public void send(BlockPos pos) {
-		PacketByteBuf data = new PacketByteBuf(Unpooled.buffer());
-		data.writeBlockPos(pos);
-		ClientSidePacketRegistry.INSTANCE.sendToServer(id, data);
+		pending.add(pos.asLong());
+	}
+
+	/**
+	 * Drops the queued events, called when the client leaves the server
+	 */
+	public void clear() {
+		pending.clear();
+	}
+
+	/**
+	 * Sends the look-at events collected during this client tick, called once at the end of every client tick.
+	 * Events over the batch limit stay queued, in order, and are sent with the next flush.
+	 */
+	public void flush() {
+		if (pending.isEmpty()) {
+			return;
+		}
+
+		PacketByteBuf data = PacketByteBufs.create();
+		int count = Math.min(pending.size(), MAX_BATCH);
+		data.writeVarInt(count);
+
+		long previous = 0;
+
+		for (int i = 0; i < count; i ++) {
+			long packed = pending.removeFirstLong();
+
+			if (i == 0) {
+				data.writeLong(packed);
+			} else {
+				data.writeVarInt(encode(BlockPos.unpackLongX(packed) - BlockPos.unpackLongX(previous)));
+				data.writeVarInt(encode(BlockPos.unpackLongY(packed) - BlockPos.unpackLongY(previous)));
+				data.writeVarInt(encode(BlockPos.unpackLongZ(packed) - BlockPos.unpackLongZ(previous)));
+			}
+
+			previous = packed;
+		}
+
+		ClientPlayNetworking.send(id, data);
+	}
+
+	private static int encode(int value) {
+		return (value << 1) ^ (value >> 31);
+	}
+
+	private static int decode(int value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	static class RateLimit {
+
+		private int tick = -1;
+		private int count;
+
+		boolean take(int tick) {
+			if (this.tick != tick) {
+				this.tick = tick;
+				this.count = 0;
+			}
+
+			return count ++ < MAX_PER_TICK;
+		}
+
 	}
 
 }
@@ -0,0 +1,45 @@
+package net.darktree.redbits.profiler;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+import net.minecraft.block.Block;
+import net.minecraft.registry.Registries;
+import net.minecraft.util.math.BlockPos;
+
+/**
+ * Base of the RedBits flight recorder events, every event covers the time spent on one
+ * block. Events are created with the static <code>start()</code> of the event type and finished with
+ * <code>event.end(pos, block)</code>, <code>start()</code> returns null when the event is disabled in the recording
+ * settings, so the hot paths don't allocate while nothing is recorded.
+ */
+@Category("RedBits")
+@StackTrace(false)
+public abstract class BlockEvent extends Event {
+
+	@Label("X")
+	int x;
+
+	@Label("Y")
+	int y;
+
+	@Label("Z")
+	int z;
+
+	@Label("Block")
+	@Description("Identifier of the block type")
+	String block;
+
+	public void end(BlockPos pos, Block block) {
+		if (shouldCommit()) {
+			this.x = pos.getX();
+			this.y = pos.getY();
+			this.z = pos.getZ();
+			this.block = Registries.BLOCK.getId(block).toString();
+			commit();
+		}
+	}
+
+}
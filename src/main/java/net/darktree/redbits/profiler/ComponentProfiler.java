@@ -0,0 +1,354 @@
+package net.darktree.redbits.profiler;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectMap;
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import net.darktree.redbits.RedBits;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.block.Block;
+import net.minecraft.block.Blocks;
+import net.minecraft.registry.Registries;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.text.Text;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.World;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Samples where RedBits components spend server time, per block type and chunk. Block state callbacks
+ * are timed as nested scopes: block changes and scheduled ticks that happen inside a scope are attributed
+ * to the component that caused them. Times are inclusive, so a scope also contains the time of scopes
+ * nested in it. While no profile is running every hook only reads one static field.
+ */
+public class ComponentProfiler {
+
+	public enum Kind {
+		SCHEDULED_TICK("ticks"),
+		NEIGHBOR_UPDATE("updates"),
+		SET_BLOCK_STATE("changes"),
+		SCHEDULE_TICK("scheduled"),
+		HOPPER_ADAPTER("hopper"),
+		JUKEBOX_EVENT("jukebox");
+
+		private static final Kind[] VALUES = values();
+		private final String label;
+
+		Kind(String label) {
+			this.label = label;
+		}
+	}
+
+	private static final int MAX_DEPTH = 256;
+	private static final int TABLE_ROWS = 10;
+
+	private static boolean active;
+	private static int endTick;
+	private static ServerCommandSource source;
+
+	private static final Reference2ObjectOpenHashMap<World, Reference2ObjectOpenHashMap<Block, Long2ObjectOpenHashMap<Entry>>> SAMPLES = new Reference2ObjectOpenHashMap<>();
+	private static final Reference2ObjectOpenHashMap<Block, Boolean> PROFILED = new Reference2ObjectOpenHashMap<>();
+
+	// scope stack, entries with no block are callbacks of blocks that are not profiled
+	private static final World[] WORLDS = new World[MAX_DEPTH];
+	private static final Block[] BLOCKS = new Block[MAX_DEPTH];
+	private static final long[] POSITIONS = new long[MAX_DEPTH];
+	private static final long[] STARTS = new long[MAX_DEPTH];
+	private static final Kind[] KINDS = new Kind[MAX_DEPTH];
+	private static int depth;
+
+	static class Entry {
+		final long[] counts = new long[Kind.VALUES.length];
+		final long[] nanos = new long[Kind.VALUES.length];
+
+		long total() {
+			return nanos[Kind.SCHEDULED_TICK.ordinal()] + nanos[Kind.NEIGHBOR_UPDATE.ordinal()] + nanos[Kind.HOPPER_ADAPTER.ordinal()];
+		}
+	}
+
+	record Row(World world, Block block, long chunk, Entry entry) {
+	}
+
+	public static void register() {
+		ServerTickEvents.END_SERVER_TICK.register(server -> {
+			if (active) {
+				// a callback that threw leaves its scope behind
+				depth = 0;
+
+				if (server.getTicks() >= endTick) {
+					stop();
+				}
+			}
+		});
+
+		ServerLifecycleEvents.SERVER_STOPPING.register(server -> {
+			active = false;
+			source = null;
+			SAMPLES.clear();
+		});
+	}
+
+	public static boolean isActive() {
+		return active;
+	}
+
+	/**
+	 * Returns the number of events of the given kind recorded by the running profile
+	 */
+	public static long getCount(Kind kind) {
+		long count = 0;
+
+		for (Reference2ObjectOpenHashMap<Block, Long2ObjectOpenHashMap<Entry>> blocks : SAMPLES.values()) {
+			for (Long2ObjectOpenHashMap<Entry> chunks : blocks.values()) {
+				for (Entry entry : chunks.values()) {
+					count += entry.counts[kind.ordinal()];
+				}
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Starts a profile of the given length, the results are sent to the given source
+	 */
+	public static boolean start(MinecraftServer server, ServerCommandSource source, int seconds) {
+		if (active) {
+			return false;
+		}
+
+		SAMPLES.clear();
+		ComponentProfiler.source = source;
+		ComponentProfiler.endTick = server.getTicks() + seconds * 20;
+		ComponentProfiler.depth = 0;
+		ComponentProfiler.active = true;
+		return true;
+	}
+
+	/**
+	 * Ends the running profile and reports its results
+	 */
+	public static void stop() {
+		if (!active) {
+			return;
+		}
+
+		active = false;
+		report();
+		SAMPLES.clear();
+		source = null;
+	}
+
+	private static boolean isProfiled(Block block) {
+		Boolean profiled = PROFILED.get(block);
+
+		if (profiled == null) {
+			profiled = block == Blocks.JUKEBOX || Registries.BLOCK.getId(block).getNamespace().equals(RedBits.NAMESPACE);
+			PROFILED.put(block, profiled);
+		}
+
+		return profiled;
+	}
+
+	/**
+	 * Opens a scope for a block callback, has to be followed by {@link #exit()}
+	 */
+	public static void enter(World world, BlockPos pos, Block block, Kind kind) {
+		if (!active || world.isClient) {
+			return;
+		}
+
+		push(world, pos.asLong(), isProfiled(block) ? block : null, kind);
+	}
+
+	/**
+	 * Opens a scope attributed to the component of the enclosing scope, has to be followed by {@link #exit()}
+	 */
+	public static void enterNested(World world, Kind kind) {
+		if (!active || world.isClient || depth == 0) {
+			return;
+		}
+
+		int top = Math.min(depth, MAX_DEPTH) - 1;
+		push(world, POSITIONS[top], BLOCKS[top], kind);
+	}
+
+	private static void push(World world, long pos, Block block, Kind kind) {
+		if (depth < MAX_DEPTH) {
+			WORLDS[depth] = world;
+			BLOCKS[depth] = block;
+			POSITIONS[depth] = pos;
+			KINDS[depth] = kind;
+			STARTS[depth] = System.nanoTime();
+		}
+
+		depth ++;
+	}
+
+	public static void exit(World world) {
+		if (!active || world.isClient || depth == 0) {
+			return;
+		}
+
+		depth --;
+
+		if (depth < MAX_DEPTH && BLOCKS[depth] != null) {
+			record(WORLDS[depth], POSITIONS[depth], BLOCKS[depth], KINDS[depth], System.nanoTime() - STARTS[depth]);
+		}
+	}
+
+	/**
+	 * Counts an event caused by the component of the enclosing scope
+	 */
+	public static void count(World world, Kind kind) {
+		if (!active || world.isClient || depth == 0) {
+			return;
+		}
+
+		int top = Math.min(depth, MAX_DEPTH) - 1;
+
+		if (BLOCKS[top] != null) {
+			record(WORLDS[top], POSITIONS[top], BLOCKS[top], kind, 0);
+		}
+	}
+
+	/**
+	 * Counts a tick scheduled by the component of the enclosing scope,
+	 * only called by the tick schedulers of server worlds
+	 */
+	public static void countScheduled() {
+		if (!active || depth == 0) {
+			return;
+		}
+
+		int top = Math.min(depth, MAX_DEPTH) - 1;
+
+		if (BLOCKS[top] != null) {
+			record(WORLDS[top], POSITIONS[top], BLOCKS[top], Kind.SCHEDULE_TICK, 0);
+		}
+	}
+
+	/**
+	 * Returns the start time for {@link #record(World, BlockPos, Block, Kind, long)}, or 0 if nothing is profiled
+	 */
+	public static long start() {
+		return active ? System.nanoTime() : 0;
+	}
+
+	public static void record(World world, BlockPos pos, Block block, Kind kind, long start) {
+		if (start != 0 && active && !world.isClient) {
+			record(world, pos.asLong(), block, kind, System.nanoTime() - start);
+		}
+	}
+
+	private static void record(World world, long pos, Block block, Kind kind, long nanos) {
+		long chunk = ChunkPos.toLong(BlockPos.unpackLongX(pos) >> 4, BlockPos.unpackLongZ(pos) >> 4);
+
+		Entry entry = SAMPLES.computeIfAbsent(world, key -> new Reference2ObjectOpenHashMap<>())
+				.computeIfAbsent(block, key -> new Long2ObjectOpenHashMap<>())
+				.computeIfAbsent(chunk, key -> new Entry());
+
+		entry.counts[kind.ordinal()] ++;
+		entry.nanos[kind.ordinal()] += nanos;
+	}
+
+	private static List<Row> collect() {
+		List<Row> rows = new ArrayList<>();
+
+		for (Reference2ObjectMap.Entry<World, Reference2ObjectOpenHashMap<Block, Long2ObjectOpenHashMap<Entry>>> world : SAMPLES.reference2ObjectEntrySet()) {
+			for (Map.Entry<Block, Long2ObjectOpenHashMap<Entry>> block : world.getValue().entrySet()) {
+				for (Long2ObjectMap.Entry<Entry> chunk : block.getValue().long2ObjectEntrySet()) {
+					rows.add(new Row(world.getKey(), block.getKey(), chunk.getLongKey(), chunk.getValue()));
+				}
+			}
+		}
+
+		rows.sort(Comparator.comparingLong((Row row) -> row.entry.total()).reversed());
+		return rows;
+	}
+
+	private static void report() {
+		List<Row> rows = collect();
+		ServerCommandSource source = ComponentProfiler.source;
+
+		if (source == null) {
+			return;
+		}
+
+		if (rows.isEmpty()) {
+			source.sendFeedback(Text.literal("Profile finished, no RedBits components were active"), false);
+			return;
+		}
+
+		StringBuilder header = new StringBuilder("time ms | block @ chunk");
+
+		for (Kind kind : Kind.VALUES) {
+			header.append(" | ").append(kind.label);
+		}
+
+		source.sendFeedback(Text.literal("Profile finished, top " + Math.min(TABLE_ROWS, rows.size()) + " of " + rows.size() + " entries:"), false);
+		source.sendFeedback(Text.literal(header.toString()), false);
+
+		for (int i = 0; i < Math.min(TABLE_ROWS, rows.size()); i ++) {
+			Row row = rows.get(i);
+			StringBuilder line = new StringBuilder(String.format(Locale.ROOT, "%.3f | %s @ %d, %d", row.entry.total() / 1e6, Registries.BLOCK.getId(row.block).getPath(), ChunkPos.getPackedX(row.chunk), ChunkPos.getPackedZ(row.chunk)));
+
+			for (Kind kind : Kind.VALUES) {
+				line.append(" | ").append(row.entry.counts[kind.ordinal()]);
+			}
+
+			source.sendFeedback(Text.literal(line.toString()), false);
+		}
+
+		try {
+			Path path = write(rows);
+			source.sendFeedback(Text.literal("Full profile saved to " + path.getFileName()), false);
+		} catch (IOException e) {
+			RedBits.LOGGER.error("Failed to save component profile", e);
+			source.sendError(Text.literal("Failed to save profile: " + e.getMessage()));
+		}
+	}
+
+	private static Path write(List<Row> rows) throws IOException {
+		String name = "redbits-profile-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH.mm.ss")) + ".csv";
+		Path path = FabricLoader.getInstance().getGameDir().resolve(name);
+
+		try (Writer writer = Files.newBufferedWriter(path)) {
+			writer.write("world,block,chunk_x,chunk_z");
+
+			for (Kind kind : Kind.VALUES) {
+				writer.write("," + kind.label + "_count," + kind.label + "_ms");
+			}
+
+			writer.write("\n");
+
+			for (Row row : rows) {
+				writer.write(row.world.getRegistryKey().getValue() + "," + Registries.BLOCK.getId(row.block) + "," + ChunkPos.getPackedX(row.chunk) + "," + ChunkPos.getPackedZ(row.chunk));
+
+				for (Kind kind : Kind.VALUES) {
+					writer.write("," + row.entry.counts[kind.ordinal()] + "," + String.format(Locale.ROOT, "%.4f", row.entry.nanos[kind.ordinal()] / 1e6));
+				}
+
+				writer.write("\n");
+			}
+		}
+
+		return path;
+	}
+
+}
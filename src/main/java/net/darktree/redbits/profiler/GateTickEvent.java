@@ -0,0 +1,27 @@
+package net.darktree.redbits.profiler;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("redbits.GateTick")
+@Label("Gate Tick")
+@Description("Scheduled tick of a RedBits gate")
+public class GateTickEvent extends BlockEvent {
+
+	private static final GateTickEvent SENTINEL = new GateTickEvent();
+
+	/**
+	 * Creates and begins an event, or returns null if the event is not enabled in the recording settings
+	 */
+	public static GateTickEvent start() {
+		if (!SENTINEL.isEnabled()) {
+			return null;
+		}
+
+		GateTickEvent event = new GateTickEvent();
+		event.begin();
+		return event;
+	}
+
+}
@@ -0,0 +1,35 @@
+package net.darktree.redbits.profiler;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("redbits.HopperTransfer")
+@Label("Hopper Transfer")
+@Description("Item moved by a hopper into or out of a jukebox or campfire")
+public class HopperTransferEvent extends BlockEvent {
+
+	private static final HopperTransferEvent SENTINEL = new HopperTransferEvent(false);
+
+	@Label("Extract")
+	@Description("True if the item was taken out of the block")
+	boolean extract;
+
+	public HopperTransferEvent(boolean extract) {
+		this.extract = extract;
+	}
+
+	/**
+	 * Creates and begins an event, or returns null if the event is not enabled in the recording settings
+	 */
+	public static HopperTransferEvent start(boolean extract) {
+		if (!SENTINEL.isEnabled()) {
+			return null;
+		}
+
+		HopperTransferEvent event = new HopperTransferEvent(extract);
+		event.begin();
+		return event;
+	}
+
+}
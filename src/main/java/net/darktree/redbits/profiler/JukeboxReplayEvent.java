@@ -0,0 +1,27 @@
+package net.darktree.redbits.profiler;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("redbits.JukeboxReplay")
+@Label("Jukebox Replay")
+@Description("Jukebox replaying its record after receiving redstone power")
+public class JukeboxReplayEvent extends BlockEvent {
+
+	private static final JukeboxReplayEvent SENTINEL = new JukeboxReplayEvent();
+
+	/**
+	 * Creates and begins an event, or returns null if the event is not enabled in the recording settings
+	 */
+	public static JukeboxReplayEvent start() {
+		if (!SENTINEL.isEnabled()) {
+			return null;
+		}
+
+		JukeboxReplayEvent event = new JukeboxReplayEvent();
+		event.begin();
+		return event;
+	}
+
+}
@@ -0,0 +1,27 @@
+package net.darktree.redbits.profiler;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("redbits.PressurePlateQuery")
+@Label("Pressure Plate Query")
+@Description("Entity query of a RedBits pressure plate")
+public class PressurePlateQueryEvent extends BlockEvent {
+
+	private static final PressurePlateQueryEvent SENTINEL = new PressurePlateQueryEvent();
+
+	/**
+	 * Creates and begins an event, or returns null if the event is not enabled in the recording settings
+	 */
+	public static PressurePlateQueryEvent start() {
+		if (!SENTINEL.isEnabled()) {
+			return null;
+		}
+
+		PressurePlateQueryEvent event = new PressurePlateQueryEvent();
+		event.begin();
+		return event;
+	}
+
+}
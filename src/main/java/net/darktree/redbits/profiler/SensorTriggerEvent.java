@@ -0,0 +1,27 @@
+package net.darktree.redbits.profiler;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("redbits.SensorTrigger")
+@Label("Vision Sensor Trigger")
+@Description("Vision sensor activated by a player looking at it")
+public class SensorTriggerEvent extends BlockEvent {
+
+	private static final SensorTriggerEvent SENTINEL = new SensorTriggerEvent();
+
+	/**
+	 * Creates and begins an event, or returns null if the event is not enabled in the recording settings
+	 */
+	public static SensorTriggerEvent start() {
+		if (!SENTINEL.isEnabled()) {
+			return null;
+		}
+
+		SensorTriggerEvent event = new SensorTriggerEvent();
+		event.begin();
+		return event;
+	}
+
+}
@@ -0,0 +1,122 @@
+package net.darktree.redbits.utils;
+
+import net.minecraft.server.world.ServerWorld;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Runs the scheduled ticks that RedBits keeps outside of the vanilla tick scheduler inside the block tick phase
+ * of the server world. Right before every vanilla block tick all RedBits ticks that sort before it (by time, then priority,
+ * then sub-tick order) are run, and the remaining ones right after the last vanilla block tick. This way the ticks run
+ * at the same place they would have, had they been scheduled with the vanilla scheduler.
+ */
+public final class BlockTickPhase {
+
+    /**
+     * Scheduled ticks of one world, sorted the same way the vanilla ticks are
+     */
+    public interface Source {
+
+        /**
+         * Collects the ticks due at the given time, called at the start of every block tick phase
+         */
+        void collect(ServerWorld world, long time);
+
+        boolean hasNext();
+
+        long getNextTime();
+
+        int getNextPriority();
+
+        long getNextOrder();
+
+        /**
+         * Runs the next collected tick
+         */
+        void runNext(ServerWorld world);
+
+    }
+
+    private static final List<Function<ServerWorld, Source>> LOOKUPS = new ArrayList<>();
+    private static final List<Source> ACTIVE = new ArrayList<>();
+    private static ServerWorld current;
+
+    /**
+     * Registers a lookup of the tick source of a world, the lookup can return null if the world has no source
+     */
+    public static void register(Function<ServerWorld, Source> lookup) {
+        LOOKUPS.add(lookup);
+    }
+
+    /**
+     * Called right before the vanilla block ticks are collected
+     */
+    public static void begin(ServerWorld world) {
+        long time = world.getTime();
+        current = world;
+        ACTIVE.clear();
+
+        for (Function<ServerWorld, Source> lookup : LOOKUPS) {
+            Source source = lookup.apply(world);
+
+            if (source != null) {
+                source.collect(world, time);
+                ACTIVE.add(source);
+            }
+        }
+    }
+
+    /**
+     * Called before every vanilla block tick, runs all collected ticks that sort before it
+     */
+    public static void before(long time, int priority, long order) {
+        if (current != null && !ACTIVE.isEmpty()) {
+            run(time, priority, order);
+        }
+    }
+
+    /**
+     * Called right after the vanilla block ticks, runs all collected ticks that are left
+     */
+    public static void end(ServerWorld world) {
+        if (current != world) {
+            return;
+        }
+
+        try {
+            run(Long.MAX_VALUE, Integer.MAX_VALUE, Long.MAX_VALUE);
+        } finally {
+            ACTIVE.clear();
+            current = null;
+        }
+    }
+
+    private static void run(long time, int priority, long order) {
+        while (true) {
+            Source next = null;
+
+            for (int i = 0; i < ACTIVE.size(); i ++) {
+                Source source = ACTIVE.get(i);
+
+                if (source.hasNext() && (next == null || compare(source, next.getNextTime(), next.getNextPriority(), next.getNextOrder()) < 0)) {
+                    next = source;
+                }
+            }
+
+            if (next == null || compare(next, time, priority, order) >= 0) {
+                return;
+            }
+
+            next.runNext(current);
+        }
+    }
+
+    private static int compare(Source source, long time, int priority, long order) {
+        int result = Long.compare(source.getNextTime(), time);
+        if (result == 0) result = Integer.compare(source.getNextPriority(), priority);
+        return result == 0 ? Long.compare(source.getNextOrder(), order) : result;
+    }
+
+}
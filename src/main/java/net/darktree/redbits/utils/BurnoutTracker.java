@@ -0,0 +1,146 @@
+package net.darktree.redbits.utils;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.darktree.redbits.RedBits;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerWorldEvents;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Replacement for the per-world list of burnout entries vanilla redstone torches scan on every toggle.
+ * Every torch position has a ring of its last toggle times, so checking for burnout only looks at the
+ * oldest of them. Positions are also put into a time bucket when they toggle, once a bucket is old enough
+ * its torches that haven't toggled since are forgotten.
+ */
+public class BurnoutTracker {
+
+    // same limits as vanilla, 8 toggles within 60 ticks burn the torch out
+    private static final int MAX_TOGGLES = 8;
+    private static final int WINDOW = 60;
+
+    // 4 buckets of 32 ticks, a bucket is reused only after all its entries are older than the window
+    private static final int BUCKET_SHIFT = 5;
+    private static final int BUCKETS = 4;
+
+    private static final Map<World, BurnoutTracker> TRACKERS = new WeakHashMap<>();
+
+    private final Long2ObjectOpenHashMap<Ring> rings = new Long2ObjectOpenHashMap<>();
+    private final LongOpenHashSet[] buckets = new LongOpenHashSet[BUCKETS];
+
+    private BurnoutTracker() {
+        for (int i = 0; i < BUCKETS; i ++) {
+            buckets[i] = new LongOpenHashSet();
+        }
+    }
+
+    public static void register() {
+        ServerTickEvents.END_WORLD_TICK.register(world -> {
+            BurnoutTracker tracker = TRACKERS.get(world);
+
+            if (tracker != null) {
+                tracker.tick(world.getTime() + 1);
+            }
+        });
+
+        ServerWorldEvents.UNLOAD.register((server, world) -> TRACKERS.remove(world));
+    }
+
+    public static boolean isEnabled() {
+        return RedBits.CONFIG.fast_burnout_tracking;
+    }
+
+    /**
+     * Same contract as vanilla RedstoneTorchBlock#isBurnedOut,
+     * records a toggle if addNew is set and checks if the torch should burn out
+     */
+    public static boolean isBurnedOut(World world, BlockPos pos, boolean addNew) {
+        BurnoutTracker tracker = TRACKERS.get(world);
+
+        if (tracker == null) {
+            if (!addNew) {
+                return false;
+            }
+
+            TRACKERS.put(world, tracker = new BurnoutTracker());
+        }
+
+        return tracker.check(pos.asLong(), world.getTime(), addNew);
+    }
+
+    private boolean check(long pos, long now, boolean addNew) {
+        Ring ring = rings.get(pos);
+
+        if (addNew) {
+            if (ring == null) {
+                rings.put(pos, ring = new Ring());
+            }
+
+            ring.add(now);
+            buckets[(int) ((now >> BUCKET_SHIFT) % BUCKETS)].add(pos);
+        }
+
+        return ring != null && ring.count(now) >= MAX_TOGGLES;
+    }
+
+    private void tick(long now) {
+        if ((now & ((1 << BUCKET_SHIFT) - 1)) != 0) {
+            return;
+        }
+
+        // the bucket that starts now was last written more than 96 ticks ago
+        LongOpenHashSet bucket = buckets[(int) ((now >> BUCKET_SHIFT) % BUCKETS)];
+        LongIterator iterator = bucket.iterator();
+
+        while (iterator.hasNext()) {
+            long pos = iterator.nextLong();
+            Ring ring = rings.get(pos);
+
+            if (ring != null && now - ring.last() > WINDOW) {
+                rings.remove(pos);
+            }
+        }
+
+        bucket.clear();
+    }
+
+    static class Ring {
+
+        private final long[] times = new long[MAX_TOGGLES];
+        private int head;
+        private int size;
+
+        void add(long time) {
+            times[head] = time;
+            head = (head + 1) % MAX_TOGGLES;
+            size = Math.min(size + 1, MAX_TOGGLES);
+        }
+
+        long last() {
+            return times[(head + MAX_TOGGLES - 1) % MAX_TOGGLES];
+        }
+
+        /**
+         * Number of toggles within the window, the times are ordered
+         * so only the ones from the oldest end can be expired
+         */
+        int count(long now) {
+            int count = size;
+            int index = (head + MAX_TOGGLES - size) % MAX_TOGGLES;
+
+            while (count > 0 && now - times[index] > WINDOW) {
+                index = (index + 1) % MAX_TOGGLES;
+                count --;
+            }
+
+            return count;
+        }
+
+    }
+
+}
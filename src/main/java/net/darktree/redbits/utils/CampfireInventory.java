@@ -1,14 +1,13 @@
 package net.darktree.redbits.utils;
 
+import net.darktree.redbits.profiler.HopperTransferEvent;
 import net.minecraft.block.entity.CampfireBlockEntity;
 import net.minecraft.inventory.Inventories;
 import net.minecraft.inventory.SidedInventory;
 import net.minecraft.inventory.SimpleInventory;
 import net.minecraft.item.ItemStack;
 import net.minecraft.recipe.CampfireCookingRecipe;
-import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Direction;
-import net.minecraft.world.WorldAccess;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -17,13 +16,18 @@ import java.util.stream.Collectors;
 
 public class CampfireInventory extends SimpleInventory implements SidedInventory {
 
-    private final WorldAccess world;
-    private final BlockPos pos;
+    private final CampfireBlockEntity entity;
 
-    public CampfireInventory(WorldAccess world, BlockPos pos ) {
+    public CampfireInventory( CampfireBlockEntity entity ) {
         super(4);
-        this.world = world;
-        this.pos = pos;
+        this.entity = entity;
+    }
+
+    /**
+     * The inventory stays valid for as long as the block entity it was created for exists
+     */
+    public boolean isValid() {
+        return !entity.isRemoved();
     }
 
     public int getMaxCountPerStack() {
@@ -36,15 +40,14 @@ public class CampfireInventory extends SimpleInventory implements SidedInventory
     }
 
     private CampfireBlockEntity getCampfireEntity() {
-        CampfireBlockEntity entity = (CampfireBlockEntity) world.getBlockEntity(pos);
-        if( entity == null ) throw new RuntimeException( "[RedBits] Campfire inventory is not attached to Campfire block entity!" );
+        if( entity.isRemoved() ) throw new RuntimeException( "[RedBits] Campfire inventory is not attached to Campfire block entity!" );
         return entity;
     }
 
     @Override
     public boolean canInsert(int slot, ItemStack stack, Direction dir) {
         if( stack.getCount() != 1 || stack.isEmpty() || !getCampfireEntity().getItemsBeingCooked().get(slot).isEmpty() ) return false;
-        return getCampfireEntity().getRecipeFor( stack ).isPresent();
+        return CampfireRecipeCache.get( entity.getWorld(), stack ).isPresent();
     }
 
     @Override
@@ -69,12 +72,15 @@ public class CampfireInventory extends SimpleInventory implements SidedInventory
         return false;
     }
 
+    /**
+     * Returns the cooked items list of the campfire itself, not a copy
+     */
     public List<ItemStack> toList() {
-        return new ArrayList<>( getCampfireEntity().getItemsBeingCooked() );
+        return getCampfireEntity().getItemsBeingCooked();
     }
 
     public List<ItemStack> clearToList() {
-        List<ItemStack> list = toList();
+        List<ItemStack> list = new ArrayList<>( toList() );
         this.clear();
         return list;
     }
@@ -90,7 +96,7 @@ public class CampfireInventory extends SimpleInventory implements SidedInventory
 
     public boolean canInsert(ItemStack stack) {
         if( stack.getCount() != 1 || stack.isEmpty() ) return false;
-        return getCampfireEntity().getRecipeFor( stack ).isPresent();
+        return CampfireRecipeCache.get( getCampfireEntity().getWorld(), stack ).isPresent();
     }
 
     public ItemStack removeStack(int slot) {
@@ -98,9 +104,15 @@ public class CampfireInventory extends SimpleInventory implements SidedInventory
     }
 
     public void setStack(int slot, ItemStack stack) {
+        HopperTransferEvent event = HopperTransferEvent.start(false);
+
         CampfireBlockEntity entity = getCampfireEntity();
-        Optional<CampfireCookingRecipe> recipe = entity.getRecipeFor( stack );
-        recipe.ifPresent(cookingRecipe -> getCampfireEntity().addItem(null, stack, cookingRecipe.getCookTime()));
+        Optional<CampfireCookingRecipe> recipe = CampfireRecipeCache.get( entity.getWorld(), stack );
+        recipe.ifPresent(cookingRecipe -> entity.addItem(null, stack, cookingRecipe.getCookTime()));
+
+        if (event != null) {
+            event.end(entity.getPos(), entity.getCachedState().getBlock());
+        }
     }
 
 }
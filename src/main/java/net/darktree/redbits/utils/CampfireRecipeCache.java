@@ -0,0 +1,52 @@
+package net.darktree.redbits.utils;
+
+import it.unimi.dsi.fastutil.objects.Reference2ObjectOpenHashMap;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.minecraft.inventory.SimpleInventory;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.recipe.CampfireCookingRecipe;
+import net.minecraft.recipe.RecipeType;
+import net.minecraft.world.World;
+
+import java.util.Optional;
+
+/**
+ * Campfire recipes of each item, used by the campfire inventory and storage instead of
+ * matching against the recipe manager on every insertion attempt. The cache is keyed by item
+ * and dropped whenever data packs are reloaded. Only stacks without NBT are cached, all of them
+ * match the same recipes, stacks with NBT can match differently (modded ingredients can test it)
+ * and are always matched against the recipe manager.
+ */
+public class CampfireRecipeCache {
+
+    private static final Reference2ObjectOpenHashMap<Item, Optional<CampfireCookingRecipe>> CACHE = new Reference2ObjectOpenHashMap<>();
+
+    public static void register() {
+        ServerLifecycleEvents.END_DATA_PACK_RELOAD.register((server, manager, success) -> CACHE.clear());
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> CACHE.clear());
+    }
+
+    public static Optional<CampfireCookingRecipe> get(World world, ItemStack stack) {
+        if (stack.isEmpty()) {
+            return Optional.empty();
+        }
+
+        if (world.isClient || stack.hasNbt()) {
+            return find(world, stack);
+        }
+
+        Optional<CampfireCookingRecipe> recipe = CACHE.get(stack.getItem());
+
+        if (recipe == null) {
+            CACHE.put(stack.getItem(), recipe = find(world, stack));
+        }
+
+        return recipe;
+    }
+
+    private static Optional<CampfireCookingRecipe> find(World world, ItemStack stack) {
+        return world.getRecipeManager().getFirstMatch(RecipeType.CAMPFIRE_COOKING, new SimpleInventory(stack), world);
+    }
+
+}
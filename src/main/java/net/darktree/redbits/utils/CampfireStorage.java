@@ -0,0 +1,133 @@
+package net.darktree.redbits.utils;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.darktree.redbits.RedBits;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerBlockEntityEvents;
+import net.fabricmc.fabric.api.transfer.v1.item.ItemStorage;
+import net.fabricmc.fabric.api.transfer.v1.item.ItemVariant;
+import net.fabricmc.fabric.api.transfer.v1.storage.StoragePreconditions;
+import net.fabricmc.fabric.api.transfer.v1.storage.base.InsertionOnlyStorage;
+import net.fabricmc.fabric.api.transfer.v1.transaction.TransactionContext;
+import net.fabricmc.fabric.api.transfer.v1.transaction.base.SnapshotParticipant;
+import net.minecraft.block.Blocks;
+import net.minecraft.block.entity.CampfireBlockEntity;
+import net.minecraft.item.ItemStack;
+import net.minecraft.recipe.CampfireCookingRecipe;
+import net.minecraft.world.World;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.WeakHashMap;
+
+/**
+ * Transfer API view of a campfire, follows the same rules as {@link CampfireInventory}: items can only be
+ * inserted, one per free slot and only if there is a campfire recipe for them. Inserted items are held
+ * until the outermost transaction is committed and only then placed on the campfire.
+ */
+public class CampfireStorage extends SnapshotParticipant<Integer> implements InsertionOnlyStorage<ItemVariant> {
+
+    // one storage per campfire so that all participants of a transaction see the same pending items
+    private static final Map<World, Long2ObjectOpenHashMap<CampfireStorage>> STORAGES = new WeakHashMap<>();
+
+    private final CampfireBlockEntity entity;
+    private final List<ItemVariant> pending = new ArrayList<>();
+    private final IntArrayList times = new IntArrayList();
+
+    private CampfireStorage(CampfireBlockEntity entity) {
+        this.entity = entity;
+    }
+
+    public static void register() {
+        ItemStorage.SIDED.registerForBlocks((world, pos, state, entity, side) -> {
+            if (!RedBits.CONFIG.campfire_integration || !(entity instanceof CampfireBlockEntity campfire)) {
+                return null;
+            }
+
+            Long2ObjectOpenHashMap<CampfireStorage> storages = STORAGES.computeIfAbsent(world, key -> new Long2ObjectOpenHashMap<>());
+            CampfireStorage storage = storages.get(pos.asLong());
+
+            if (storage == null || storage.entity != campfire) {
+                storages.put(pos.asLong(), storage = new CampfireStorage(campfire));
+            }
+
+            return storage;
+        }, Blocks.CAMPFIRE, Blocks.SOUL_CAMPFIRE);
+
+        ServerBlockEntityEvents.BLOCK_ENTITY_UNLOAD.register((entity, world) -> {
+            Long2ObjectOpenHashMap<CampfireStorage> storages = STORAGES.get(world);
+
+            if (storages != null) {
+                storages.remove(entity.getPos().asLong());
+            }
+        });
+    }
+
+    private int getFreeSlots() {
+        int free = 0;
+
+        for (ItemStack stack : entity.getItemsBeingCooked()) {
+            if (stack.isEmpty()) {
+                free ++;
+            }
+        }
+
+        return free - pending.size();
+    }
+
+    @Override
+    public long insert(ItemVariant resource, long maxAmount, TransactionContext transaction) {
+        StoragePreconditions.notBlankNotNegative(resource, maxAmount);
+
+        if (entity.isRemoved()) {
+            return 0;
+        }
+
+        int count = (int) Math.min(maxAmount, getFreeSlots());
+
+        if (count <= 0) {
+            return 0;
+        }
+
+        Optional<CampfireCookingRecipe> recipe = CampfireRecipeCache.get(entity.getWorld(), resource.toStack());
+
+        if (recipe.isEmpty()) {
+            return 0;
+        }
+
+        updateSnapshots(transaction);
+
+        for (int i = 0; i < count; i ++) {
+            pending.add(resource);
+            times.add(recipe.get().getCookTime());
+        }
+
+        return count;
+    }
+
+    @Override
+    protected Integer createSnapshot() {
+        return pending.size();
+    }
+
+    @Override
+    protected void readSnapshot(Integer snapshot) {
+        pending.subList(snapshot, pending.size()).clear();
+        times.removeElements(snapshot, times.size());
+    }
+
+    @Override
+    protected void onFinalCommit() {
+        if (!entity.isRemoved()) {
+            for (int i = 0; i < pending.size(); i ++) {
+                entity.addItem(null, pending.get(i).toStack(), times.getInt(i));
+            }
+        }
+
+        pending.clear();
+        times.clear();
+    }
+
+}
@@ -0,0 +1,140 @@
+package net.darktree.redbits.utils;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.darktree.redbits.RedBits;
+import net.darktree.redbits.entity.EmitterMinecartEntity;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerEntityEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerWorldEvents;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.world.World;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Positions powered by emitter minecarts. A cart powers the rail it is on (the rail counts as receiving
+ * power) and, like a detector rail, gives weak power to all blocks around it and strong power to the
+ * block below. Carts move their power only when they enter another block or their power level changes,
+ * neighbors are updated only then. Each position keeps a count of carts per power level,
+ * so overlapping carts are handled without holding references to them.
+ */
+public class CartPower {
+
+    public static final long NONE = Long.MAX_VALUE;
+
+    private static final Map<World, Long2ObjectOpenHashMap<int[]>> POWERED = new WeakHashMap<>();
+
+    // number of powered positions in all worlds, lets the world hooks return right away
+    private static int total;
+
+    public static void register() {
+        ServerEntityEvents.ENTITY_UNLOAD.register((entity, world) -> {
+            if (entity instanceof EmitterMinecartEntity cart) {
+                // carts unloaded with their chunk must not update (and so load) blocks around them
+                boolean update = entity.getRemovalReason() == null || !entity.getRemovalReason().shouldSave();
+                cart.clearRailPower(update);
+            }
+        });
+
+        ServerWorldEvents.UNLOAD.register((server, world) -> {
+            Long2ObjectOpenHashMap<int[]> powered = POWERED.remove(world);
+
+            if (powered != null) {
+                total -= powered.size();
+            }
+        });
+    }
+
+    public static boolean isEnabled() {
+        return RedBits.CONFIG.emitter_minecart_rail_power;
+    }
+
+    /**
+     * Moves the power of a cart, either of the positions can be {@link #NONE}
+     */
+    public static void move(World world, long from, int fromPower, long to, int toPower, boolean update) {
+        Long2ObjectOpenHashMap<int[]> powered = POWERED.computeIfAbsent(world, key -> new Long2ObjectOpenHashMap<>());
+
+        if (from != NONE && fromPower > 0) {
+            int[] counts = powered.get(from);
+
+            if (counts != null) {
+                counts[fromPower] --;
+
+                if (max(counts) == 0) {
+                    powered.remove(from);
+                    total --;
+                }
+            }
+        }
+
+        if (to != NONE && toPower > 0) {
+            int[] counts = powered.get(to);
+
+            if (counts == null) {
+                powered.put(to, counts = new int[16]);
+                total ++;
+            }
+
+            counts[toPower] ++;
+        }
+
+        if (update) {
+            if (from != NONE) {
+                update(world, BlockPos.fromLong(from));
+            }
+
+            if (to != NONE && to != from) {
+                update(world, BlockPos.fromLong(to));
+            }
+        }
+    }
+
+    private static void update(World world, BlockPos pos) {
+        world.updateNeighbor(pos, RedBits.REDSTONE_EMITTER, pos);
+        world.updateNeighborsAlways(pos, RedBits.REDSTONE_EMITTER);
+        world.updateNeighborsAlways(pos.down(), RedBits.REDSTONE_EMITTER);
+    }
+
+    private static int max(int[] counts) {
+        for (int i = 15; i > 0; i --) {
+            if (counts[i] > 0) {
+                return i;
+            }
+        }
+
+        return 0;
+    }
+
+    /**
+     * Power of the carts at the given position
+     */
+    public static int getPower(World world, BlockPos pos) {
+        if (total == 0 || world.isClient) {
+            return 0;
+        }
+
+        Long2ObjectOpenHashMap<int[]> powered = POWERED.get(world);
+
+        if (powered == null) {
+            return 0;
+        }
+
+        int[] counts = powered.get(pos.asLong());
+        return counts == null ? 0 : max(counts);
+    }
+
+    /**
+     * Power emitted from the given position, carts emit strong power only downwards. As with
+     * the vanilla power queries the direction points from the block below towards the cart, so it is UP
+     */
+    public static int getEmittedPower(World world, BlockPos pos, Direction direction, boolean strong) {
+        if (total == 0 || (strong && direction != Direction.UP)) {
+            return 0;
+        }
+
+        return getPower(world, pos);
+    }
+
+}
@@ -0,0 +1,482 @@
+package net.darktree.redbits.utils;
+
+import it.unimi.dsi.fastutil.ints.IntArraySet;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.darktree.redbits.RedBits;
+import net.darktree.redbits.profiler.ComponentProfiler;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerChunkEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerWorldEvents;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtElement;
+import net.minecraft.nbt.NbtList;
+import net.minecraft.registry.Registries;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.WorldChunk;
+import net.minecraft.world.tick.TickPriority;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Scheduled ticks of RedBits blocks, kept out of the vanilla tick scheduler. Each chunk has its own queue
+ * stored in primitive arrays, and the ticks are run in the block tick phase, merged with the vanilla block ticks
+ * by time, then priority, then scheduling order, see {@link BlockTickPhase}. Like the vanilla scheduler a block
+ * can only be queued once per position. The entries of a chunk are stored in its NBT next to the vanilla ticks,
+ * with their delay, priority and scheduling order, and are queued again when the chunk is loaded.
+ */
+public class GateTickQueue implements BlockTickPhase.Source {
+
+    // same limit as the vanilla scheduler uses for one tick
+    private static final int MAX_TICKS = 65536;
+
+    public static final String KEY = RedBits.NAMESPACE + ":gate_ticks";
+
+    private static final Map<World, GateTickQueue> QUEUES = new WeakHashMap<>();
+
+    // entries read on the chunk loading threads, until the chunk is loaded into its world
+    private static final Map<WorldChunk, Entries> LOADED = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final Long2ObjectOpenHashMap<Entries> chunks = new Long2ObjectOpenHashMap<>();
+    private final Keys queued = new Keys();
+    private final Keys ticking = new Keys();
+
+    // ticks collected for the current block tick phase, run in the sorted order
+    private final Entries batch = new Entries();
+    private int[] order = new int[16];
+    private int count;
+    private int next;
+
+    /**
+     * Growable set of parallel arrays, removal moves the last entry into the freed slot
+     */
+    static class Entries {
+
+        long[] positions = new long[8];
+        long[] times = new long[8];
+        long[] orders = new long[8];
+        int[] blocks = new int[8];
+        byte[] priorities = new byte[8];
+        int size;
+
+        // lower bound of the times in this queue
+        long earliest = Long.MAX_VALUE;
+
+        void add(long pos, long time, long order, int block, byte priority) {
+            if (size == positions.length) {
+                int length = size * 2;
+                positions = Arrays.copyOf(positions, length);
+                times = Arrays.copyOf(times, length);
+                orders = Arrays.copyOf(orders, length);
+                blocks = Arrays.copyOf(blocks, length);
+                priorities = Arrays.copyOf(priorities, length);
+            }
+
+            positions[size] = pos;
+            times[size] = time;
+            orders[size] = order;
+            blocks[size] = block;
+            priorities[size] = priority;
+            size ++;
+
+            earliest = Math.min(earliest, time);
+        }
+
+        void copy(int i, Entries target) {
+            target.add(positions[i], times[i], orders[i], blocks[i], priorities[i]);
+        }
+
+        void remove(int i) {
+            int last = -- size;
+            positions[i] = positions[last];
+            times[i] = times[last];
+            orders[i] = orders[last];
+            blocks[i] = blocks[last];
+            priorities[i] = priorities[last];
+        }
+
+        void clear() {
+            size = 0;
+            earliest = Long.MAX_VALUE;
+        }
+
+    }
+
+    /**
+     * Set of position and block pairs, the same key as the vanilla scheduler uses. Almost every position
+     * only ever holds one block, so the first block is kept in a primitive map and only further ones in a set.
+     */
+    static class Keys {
+
+        private final Long2IntOpenHashMap first = new Long2IntOpenHashMap();
+        private final Long2ObjectOpenHashMap<IntArraySet> more = new Long2ObjectOpenHashMap<>();
+
+        Keys() {
+            first.defaultReturnValue(-1);
+        }
+
+        boolean contains(long pos, int block) {
+            int value = first.get(pos);
+
+            if (value == block || value == -1 || more.isEmpty()) {
+                return value == block;
+            }
+
+            IntArraySet blocks = more.get(pos);
+            return blocks != null && blocks.contains(block);
+        }
+
+        void add(long pos, int block) {
+            int value = first.putIfAbsent(pos, block);
+
+            if (value != -1 && value != block) {
+                more.computeIfAbsent(pos, key -> new IntArraySet()).add(block);
+            }
+        }
+
+        void remove(long pos, int block) {
+            int value = first.get(pos);
+
+            if (value == -1) {
+                return;
+            }
+
+            IntArraySet blocks = more.isEmpty() ? null : more.get(pos);
+
+            if (value == block) {
+                if (blocks == null) {
+                    first.remove(pos);
+                    return;
+                }
+
+                // another block at the same position takes the primary slot
+                int other = blocks.iterator().nextInt();
+                blocks.remove(other);
+                first.put(pos, other);
+            } else if (blocks == null || !blocks.remove(block)) {
+                return;
+            }
+
+            if (blocks.isEmpty()) {
+                more.remove(pos);
+            }
+        }
+
+        boolean isEmpty() {
+            return first.isEmpty();
+        }
+
+        int size() {
+            return first.size();
+        }
+
+        void clear() {
+            first.clear();
+            more.clear();
+        }
+
+    }
+
+    public static void register() {
+        BlockTickPhase.register(QUEUES::get);
+
+        ServerChunkEvents.CHUNK_LOAD.register((world, chunk) -> {
+            Entries entries = LOADED.remove(chunk);
+
+            if (entries != null) {
+                QUEUES.computeIfAbsent(world, key -> new GateTickQueue()).load(world, entries);
+            }
+        });
+
+        ServerChunkEvents.CHUNK_UNLOAD.register((world, chunk) -> {
+            GateTickQueue queue = QUEUES.get(world);
+
+            if (queue != null) {
+                queue.unload(chunk);
+            }
+        });
+
+        ServerWorldEvents.UNLOAD.register((server, world) -> QUEUES.remove(world));
+    }
+
+    public static boolean isEnabled() {
+        return RedBits.CONFIG.gate_tick_queue;
+    }
+
+    public static void schedule(World world, BlockPos pos, Block block, int delay) {
+        schedule(world, pos, block, delay, TickPriority.NORMAL);
+    }
+
+    /**
+     * Replacement for {@link World#scheduleBlockTick(BlockPos, Block, int, TickPriority)},
+     * falls back to it when the queue is disabled
+     */
+    public static void schedule(World world, BlockPos pos, Block block, int delay, TickPriority priority) {
+        if (!isEnabled() || world.isClient) {
+            world.scheduleBlockTick(pos, block, delay, priority);
+            return;
+        }
+
+        GateTickQueue queue = QUEUES.computeIfAbsent(world, key -> new GateTickQueue());
+
+        if (queue.add(pos.asLong(), world.getTime() + delay, world.getTickOrder(), Registries.BLOCK.getRawId(block), (byte) priority.getIndex())) {
+            ComponentProfiler.count(world, ComponentProfiler.Kind.SCHEDULE_TICK);
+        }
+    }
+
+    /**
+     * Replacement for {@link net.minecraft.world.tick.QueryableTickScheduler#isQueued(BlockPos, Object)}
+     */
+    public static boolean isQueued(World world, BlockPos pos, Block block) {
+        if (world.isClient) {
+            return world.getBlockTickScheduler().isQueued(pos, block);
+        }
+
+        GateTickQueue queue = QUEUES.get(world);
+        boolean queued = queue != null && queue.queued.contains(pos.asLong(), Registries.BLOCK.getRawId(block));
+
+        // ticks scheduled while the queue was disabled are in the vanilla scheduler
+        return isEnabled() ? queued : queued || world.getBlockTickScheduler().isQueued(pos, block);
+    }
+
+    /**
+     * Replacement for {@link net.minecraft.world.tick.QueryableTickScheduler#isTicking(BlockPos, Object)},
+     * true if the tick is due in this world tick, but was not run yet
+     */
+    public static boolean isTicking(World world, BlockPos pos, Block block) {
+        if (world.isClient) {
+            return world.getBlockTickScheduler().isTicking(pos, block);
+        }
+
+        GateTickQueue queue = QUEUES.get(world);
+        boolean ticking = queue != null && !queue.ticking.isEmpty() && queue.ticking.contains(pos.asLong(), Registries.BLOCK.getRawId(block));
+
+        return isEnabled() ? ticking : ticking || world.getBlockTickScheduler().isTicking(pos, block);
+    }
+
+    /**
+     * Writes the entries of the given chunk into its NBT, called when the chunk is serialized.
+     * The entries stay queued, the chunk keeps ticking until it is unloaded.
+     */
+    public static void write(ServerWorld world, ChunkPos chunk, NbtCompound nbt) {
+        GateTickQueue queue = QUEUES.get(world);
+        Entries entries = queue == null ? null : queue.chunks.get(chunk.toLong());
+
+        if (entries == null || entries.size == 0) {
+            return;
+        }
+
+        long now = world.getTime();
+        NbtList list = new NbtList();
+
+        for (int i = 0; i < entries.size; i ++) {
+            NbtCompound entry = new NbtCompound();
+            long pos = entries.positions[i];
+
+            // same fields as the vanilla ticks, with the scheduling order added
+            entry.putString("i", Registries.BLOCK.getId(Registries.BLOCK.get(entries.blocks[i])).toString());
+            entry.putInt("x", BlockPos.unpackLongX(pos));
+            entry.putInt("y", BlockPos.unpackLongY(pos));
+            entry.putInt("z", BlockPos.unpackLongZ(pos));
+            entry.putInt("t", (int) (entries.times[i] - now));
+            entry.putInt("p", entries.priorities[i]);
+            entry.putLong("o", entries.orders[i]);
+            list.add(entry);
+        }
+
+        nbt.put(KEY, list);
+    }
+
+    /**
+     * Reads the entries stored in the chunk NBT, called on the chunk loading threads when
+     * the chunk is deserialized. They are queued when the chunk is loaded into its world.
+     */
+    public static void read(WorldChunk chunk, NbtCompound nbt) {
+        if (!nbt.contains(KEY, NbtElement.LIST_TYPE)) {
+            return;
+        }
+
+        NbtList list = nbt.getList(KEY, NbtElement.COMPOUND_TYPE);
+        Entries entries = new Entries();
+
+        for (int i = 0; i < list.size(); i ++) {
+            NbtCompound entry = list.getCompound(i);
+            Identifier id = Identifier.tryParse(entry.getString("i"));
+
+            if (id == null || !Registries.BLOCK.containsId(id)) {
+                continue;
+            }
+
+            // the time is kept as the delay until the chunk is loaded, same as vanilla
+            long pos = BlockPos.asLong(entry.getInt("x"), entry.getInt("y"), entry.getInt("z"));
+            entries.add(pos, entry.getInt("t"), entry.getLong("o"), Registries.BLOCK.getRawId(Registries.BLOCK.get(id)), (byte) entry.getInt("p"));
+        }
+
+        if (entries.size > 0) {
+            LOADED.put(chunk, entries);
+        }
+    }
+
+    /**
+     * Queues the entry, returns false if the block is already queued at that position
+     */
+    private boolean add(long pos, long time, long order, int block, byte priority) {
+        if (queued.contains(pos, block)) {
+            return false;
+        }
+
+        queued.add(pos, block);
+        chunks.computeIfAbsent(chunkOf(pos), chunk -> new Entries()).add(pos, time, order, block, priority);
+        return true;
+    }
+
+    /**
+     * Queues the entries read from the chunk NBT. The saved scheduling order is only comparable within the
+     * session it came from, so like vanilla the entries get new orders, given out in the saved order.
+     */
+    private void load(World world, Entries entries) {
+        long now = world.getTime();
+        int[] sorted = new int[entries.size];
+
+        for (int i = 0; i < entries.size; i ++) {
+            sorted[i] = i;
+        }
+
+        IntArrays.quickSort(sorted, (a, b) -> Long.compare(entries.orders[a], entries.orders[b]));
+
+        for (int index : sorted) {
+            add(entries.positions[index], now + entries.times[index], world.getTickOrder(), entries.blocks[index], entries.priorities[index]);
+        }
+    }
+
+    private void unload(WorldChunk chunk) {
+        Entries entries = chunks.remove(chunk.getPos().toLong());
+
+        // the entries were written into the chunk when it was saved
+        if (entries != null) {
+            for (int i = 0; i < entries.size; i ++) {
+                queued.remove(entries.positions[i], entries.blocks[i]);
+            }
+        }
+    }
+
+    @Override
+    public void collect(ServerWorld world, long now) {
+        batch.clear();
+        ticking.clear();
+        count = 0;
+        next = 0;
+
+        if (queued.isEmpty()) {
+            return;
+        }
+
+        for (Long2ObjectMap.Entry<Entries> chunk : chunks.long2ObjectEntrySet()) {
+            Entries entries = chunk.getValue();
+
+            // chunks outside of the ticking range are frozen, same as with scheduled ticks
+            if (entries.earliest > now || !world.shouldTickBlocksInChunk(chunk.getLongKey())) {
+                continue;
+            }
+
+            long earliest = Long.MAX_VALUE;
+
+            for (int i = 0; i < entries.size; ) {
+                if (entries.times[i] <= now) {
+                    entries.copy(i, batch);
+                    entries.remove(i);
+                } else {
+                    earliest = Math.min(earliest, entries.times[i]);
+                    i ++;
+                }
+            }
+
+            entries.earliest = earliest;
+        }
+
+        if (batch.size == 0) {
+            return;
+        }
+
+        if (order.length < batch.size) {
+            order = new int[batch.size * 2];
+        }
+
+        for (int i = 0; i < batch.size; i ++) {
+            order[i] = i;
+        }
+
+        IntArrays.quickSort(order, 0, batch.size, (a, b) -> {
+            int result = Long.compare(batch.times[a], batch.times[b]);
+            if (result == 0) result = Byte.compare(batch.priorities[a], batch.priorities[b]);
+            return result == 0 ? Long.compare(batch.orders[a], batch.orders[b]) : result;
+        });
+
+        count = Math.min(batch.size, MAX_TICKS);
+
+        // ticks over the limit wait for the next world tick, vanilla does the same
+        for (int i = count; i < batch.size; i ++) {
+            int index = order[i];
+            chunks.computeIfAbsent(chunkOf(batch.positions[index]), chunk -> new Entries()).add(batch.positions[index], batch.times[index], batch.orders[index], batch.blocks[index], batch.priorities[index]);
+        }
+
+        // the ticks are no longer queued, so that they can schedule themselves again
+        for (int i = 0; i < count; i ++) {
+            int index = order[i];
+            queued.remove(batch.positions[index], batch.blocks[index]);
+            ticking.add(batch.positions[index], batch.blocks[index]);
+        }
+
+        if (chunks.size() > queued.size()) {
+            chunks.values().removeIf(entries -> entries.size == 0);
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return next < count;
+    }
+
+    @Override
+    public long getNextTime() {
+        return batch.times[order[next]];
+    }
+
+    @Override
+    public int getNextPriority() {
+        return batch.priorities[order[next]];
+    }
+
+    @Override
+    public long getNextOrder() {
+        return batch.orders[order[next]];
+    }
+
+    @Override
+    public void runNext(ServerWorld world) {
+        int index = order[next ++];
+        ticking.remove(batch.positions[index], batch.blocks[index]);
+
+        BlockPos pos = BlockPos.fromLong(batch.positions[index]);
+        BlockState state = world.getBlockState(pos);
+
+        if (Registries.BLOCK.getRawId(state.getBlock()) == batch.blocks[index]) {
+            state.scheduledTick(world, pos, world.random);
+        }
+    }
+
+    private static long chunkOf(long pos) {
+        return ChunkPos.toLong(BlockPos.unpackLongX(pos) >> 4, BlockPos.unpackLongZ(pos) >> 4);
+    }
+
+}
@@ -0,0 +1,51 @@
+package net.darktree.redbits.utils;
+
+import net.darktree.redbits.RedBits;
+import net.minecraft.block.BlockState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.Direction;
+import net.minecraft.world.BlockView;
+
+/**
+ * Checks used by the minimal update mode of the gates, after a gate changes its state
+ * only the sides it now emits a different power to are notified, state changes
+ * that only touch internal properties (like the input or delay) notify no one
+ */
+public class GateUpdates {
+
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    public static boolean isEnabled() {
+        return RedBits.CONFIG.minimal_gate_updates;
+    }
+
+    /**
+     * Returns true if the neighbours of the gate can be left alone after the given state change,
+     * always false when the minimal updates are disabled or the block was replaced
+     */
+    public static boolean canSkip(BlockView world, BlockPos pos, BlockState from, BlockState to) {
+        if (!isEnabled() || !from.isOf(to.getBlock())) {
+            return false;
+        }
+
+        for (Direction side : DIRECTIONS) {
+            if (changes(world, pos, from, to, side)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns true if the power emitted into the block on the given side differs between the two states
+     */
+    public static boolean changes(BlockView world, BlockPos pos, BlockState from, BlockState to, Direction side) {
+        // the neighbour on the given side asks for the power from the opposite direction
+        Direction direction = side.getOpposite();
+
+        return from.getWeakRedstonePower(world, pos, direction) != to.getWeakRedstonePower(world, pos, direction)
+            || from.getStrongRedstonePower(world, pos, direction) != to.getStrongRedstonePower(world, pos, direction);
+    }
+
+}
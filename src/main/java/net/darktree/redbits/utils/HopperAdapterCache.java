@@ -0,0 +1,69 @@
+package net.darktree.redbits.utils;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerBlockEntityEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerWorldEvents;
+import net.minecraft.inventory.Inventory;
+import net.minecraft.world.World;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Per-world cache of the jukebox and campfire inventories handed out to hoppers,
+ * keyed by packed block position. Entries hold the resolved block entity and are dropped
+ * when that block entity gets removed (block change) or unloaded (chunk unload).
+ */
+public class HopperAdapterCache {
+
+    private static final Map<World, Long2ObjectOpenHashMap<Inventory>> CACHE = new WeakHashMap<>();
+
+    public static void register() {
+        ServerBlockEntityEvents.BLOCK_ENTITY_UNLOAD.register((entity, world) -> invalidate(world, entity.getPos().asLong()));
+        ServerWorldEvents.UNLOAD.register((server, world) -> CACHE.remove(world));
+    }
+
+    public static Inventory get(World world, long pos) {
+        Long2ObjectOpenHashMap<Inventory> adapters = CACHE.get(world);
+
+        if (adapters != null) {
+            Inventory inventory = adapters.get(pos);
+
+            if (inventory != null) {
+                if (isValid(inventory)) {
+                    return inventory;
+                }
+
+                adapters.remove(pos);
+            }
+        }
+
+        return null;
+    }
+
+    public static Inventory put(World world, long pos, Inventory inventory) {
+        CACHE.computeIfAbsent(world, key -> new Long2ObjectOpenHashMap<>()).put(pos, inventory);
+        return inventory;
+    }
+
+    public static void invalidate(World world, long pos) {
+        Long2ObjectOpenHashMap<Inventory> adapters = CACHE.get(world);
+
+        if (adapters != null) {
+            adapters.remove(pos);
+        }
+    }
+
+    private static boolean isValid(Inventory inventory) {
+        if (inventory instanceof JukeboxInventory jukebox) {
+            return jukebox.isValid();
+        }
+
+        if (inventory instanceof CampfireInventory campfire) {
+            return campfire.isValid();
+        }
+
+        return false;
+    }
+
+}
@@ -0,0 +1,122 @@
+package net.darktree.redbits.utils;
+
+import it.unimi.dsi.fastutil.longs.Long2IntLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2IntMap;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerWorldEvents;
+import net.fabricmc.fabric.api.networking.v1.PlayerLookup;
+import net.minecraft.network.packet.s2c.play.WorldEventS2CPacket;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import net.minecraft.world.WorldEvents;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Jukebox disc events sent to clients. Events are collected during the world tick and only the last
+ * one of each jukebox is sent at the end of it. A disc start already stops the disc that was playing,
+ * so redstone replays only send the start, and a jukebox can't be restarted more than once per {@link #MIN_RESTART_TICKS}.
+ * Starts are sent to players that can hear the disc, stops to all players that have the jukebox loaded.
+ */
+public class JukeboxEvents {
+
+    private static final int MIN_RESTART_TICKS = 10;
+
+    // music discs can be heard from up to 64 blocks away
+    private static final double AUDIBLE_RANGE = 64;
+    private static final int STOP = 0;
+
+    private static final Map<World, JukeboxEvents> EVENTS = new WeakHashMap<>();
+
+    private final Long2IntLinkedOpenHashMap pending = new Long2IntLinkedOpenHashMap();
+    private final Long2LongOpenHashMap started = new Long2LongOpenHashMap();
+
+    public static void register() {
+        ServerTickEvents.END_WORLD_TICK.register(world -> {
+            JukeboxEvents events = EVENTS.get(world);
+
+            if (events != null) {
+                events.flush(world);
+            }
+        });
+
+        ServerWorldEvents.UNLOAD.register((server, world) -> EVENTS.remove(world));
+    }
+
+    /**
+     * Called when a jukebox receives a redstone pulse, returns false if
+     * the jukebox was restarted too recently and should keep playing
+     */
+    public static boolean canRestart(World world, BlockPos pos) {
+        JukeboxEvents events = EVENTS.get(world);
+        return events == null || events.started.get(pos.asLong()) <= world.getTime() - MIN_RESTART_TICKS;
+    }
+
+    /**
+     * Starts the given disc for clients around the jukebox
+     */
+    public static void play(World world, BlockPos pos, int disc) {
+        if (world instanceof ServerWorld) {
+            JukeboxEvents events = EVENTS.computeIfAbsent(world, key -> new JukeboxEvents());
+            long key = pos.asLong();
+
+            events.pending.put(key, disc);
+            events.started.put(key, world.getTime());
+        }
+    }
+
+    /**
+     * Stops the disc the jukebox was playing
+     */
+    public static void stop(World world, BlockPos pos) {
+        if (world instanceof ServerWorld) {
+            JukeboxEvents events = EVENTS.computeIfAbsent(world, key -> new JukeboxEvents());
+            long key = pos.asLong();
+
+            events.pending.put(key, STOP);
+            events.started.remove(key);
+        }
+    }
+
+    private JukeboxEvents() {
+        started.defaultReturnValue(Long.MIN_VALUE);
+    }
+
+    private void flush(ServerWorld world) {
+        long now = world.getTime();
+
+        if (now % 200 == 0) {
+            started.long2LongEntrySet().removeIf(entry -> entry.getLongValue() <= now - MIN_RESTART_TICKS);
+        }
+
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        BlockPos.Mutable pos = new BlockPos.Mutable();
+
+        for (Long2IntMap.Entry entry : pending.long2IntEntrySet()) {
+            pos.set(entry.getLongKey());
+            int disc = entry.getIntValue();
+
+            if (!world.isChunkLoaded(pos)) {
+                continue;
+            }
+
+            WorldEventS2CPacket packet = new WorldEventS2CPacket(WorldEvents.MUSIC_DISC_PLAYED, pos.toImmutable(), disc, false);
+            Collection<ServerPlayerEntity> players = disc == STOP ? PlayerLookup.tracking(world, pos) : PlayerLookup.around(world, pos, AUDIBLE_RANGE);
+
+            for (ServerPlayerEntity player : players) {
+                player.networkHandler.sendPacket(packet);
+            }
+        }
+
+        pending.clear();
+    }
+
+}
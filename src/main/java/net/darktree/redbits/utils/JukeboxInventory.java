@@ -1,5 +1,6 @@
 package net.darktree.redbits.utils;
 
+import net.darktree.redbits.profiler.HopperTransferEvent;
 import net.minecraft.block.BlockState;
 import net.minecraft.block.Blocks;
 import net.minecraft.block.JukeboxBlock;
@@ -12,6 +13,7 @@ import net.minecraft.item.MusicDiscItem;
 import net.minecraft.recipe.RecipeMatcher;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Direction;
+import net.minecraft.world.World;
 import net.minecraft.world.WorldAccess;
 
 import java.util.ArrayList;
@@ -22,11 +24,20 @@ public class JukeboxInventory extends SimpleInventory implements SidedInventory
 
     private final WorldAccess world;
     private final BlockPos pos;
+    private final JukeboxBlockEntity entity;
 
-    public JukeboxInventory( WorldAccess world, BlockPos pos ) {
+    public JukeboxInventory( WorldAccess world, BlockPos pos, JukeboxBlockEntity entity ) {
         super(1);
         this.world = world;
         this.pos = pos;
+        this.entity = entity;
+    }
+
+    /**
+     * The inventory stays valid for as long as the block entity it was created for exists
+     */
+    public boolean isValid() {
+        return !entity.isRemoved();
     }
 
     public int getMaxCountPerStack() {
@@ -44,14 +55,13 @@ public class JukeboxInventory extends SimpleInventory implements SidedInventory
     }
 
     public BlockState getJukebox() {
-        BlockState bs = world.getBlockState(pos);
+        BlockState bs = getJukeboxEntity().getCachedState();
         if(bs.getBlock() != Blocks.JUKEBOX) throw new RuntimeException("[RedBits] Jukebox inventory is not attached to Jukebox block!");
         return bs;
     }
 
     public JukeboxBlockEntity getJukeboxEntity() {
-        JukeboxBlockEntity entity = (JukeboxBlockEntity) world.getBlockEntity(pos);
-        if( entity == null ) throw new RuntimeException("[RedBits] Jukebox inventory is not attached to Jukebox block entity!");
+        if( entity.isRemoved() ) throw new RuntimeException("[RedBits] Jukebox inventory is not attached to Jukebox block entity!");
         return entity;
     }
 
@@ -69,11 +79,17 @@ public class JukeboxInventory extends SimpleInventory implements SidedInventory
     }
 
     public void markDirty() {
-        boolean empty = this.isEmpty();
-        world.setBlockState(pos, getJukebox().with( JukeboxBlock.HAS_RECORD, !empty ), 3);
+        sync(world, pos, getJukebox(), this.isEmpty());
+    }
 
-        if (empty && !world.isClient()) {
-            world.syncWorldEvent(1010, pos, 0);
+    /**
+     * Updates the jukebox block state after its record changed, shared with {@link JukeboxStorage}
+     */
+    public static void sync(WorldAccess world, BlockPos pos, BlockState state, boolean empty) {
+        world.setBlockState(pos, state.with( JukeboxBlock.HAS_RECORD, !empty ), 3);
+
+        if (empty && world instanceof World level) {
+            JukeboxEvents.stop(level, pos);
         }
     }
 
@@ -120,11 +136,17 @@ public class JukeboxInventory extends SimpleInventory implements SidedInventory
     }
 
     public ItemStack removeStack(int slot, int amount) {
+        HopperTransferEvent event = HopperTransferEvent.start(true);
+
         ItemStack itemStack = Inventories.splitStack(toList(), slot, amount);
         if (!itemStack.isEmpty()) {
             this.markDirty();
         }
 
+        if (event != null) {
+            event.end(pos, Blocks.JUKEBOX);
+        }
+
         return itemStack;
     }
 
@@ -143,8 +165,12 @@ public class JukeboxInventory extends SimpleInventory implements SidedInventory
     }
 
     public void setStack(int slot, ItemStack stack) {
+        HopperTransferEvent event = HopperTransferEvent.start(false);
         this.setStack(stack);
-        this.markDirty();
+
+        if (event != null) {
+            event.end(pos, Blocks.JUKEBOX);
+        }
     }
 
 }
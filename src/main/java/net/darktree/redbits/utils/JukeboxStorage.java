@@ -0,0 +1,94 @@
+package net.darktree.redbits.utils;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.darktree.redbits.RedBits;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerBlockEntityEvents;
+import net.fabricmc.fabric.api.transfer.v1.item.ItemStorage;
+import net.fabricmc.fabric.api.transfer.v1.item.ItemVariant;
+import net.fabricmc.fabric.api.transfer.v1.item.base.SingleStackStorage;
+import net.fabricmc.fabric.api.transfer.v1.storage.Storage;
+import net.fabricmc.fabric.api.transfer.v1.storage.base.FilteringStorage;
+import net.minecraft.block.Blocks;
+import net.minecraft.block.entity.JukeboxBlockEntity;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.MusicDiscItem;
+import net.minecraft.util.math.Direction;
+import net.minecraft.world.World;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Transfer API view of a jukebox, follows the same rules as {@link JukeboxInventory}: only music discs
+ * can be inserted and the disc can only be extracted from below. The storage itself is only returned for the bottom
+ * side, all other sides get an insertion only view of it. The record is swapped in the block entity
+ * right away and the block state and world event are updated once, when the outermost transaction is committed.
+ */
+public class JukeboxStorage extends SingleStackStorage {
+
+    // one storage per jukebox so that all participants of a transaction see the same snapshots
+    private static final Map<World, Long2ObjectOpenHashMap<JukeboxStorage>> STORAGES = new WeakHashMap<>();
+
+    private final World world;
+    private final JukeboxBlockEntity entity;
+    private final Storage<ItemVariant> insertOnly;
+
+    private JukeboxStorage(World world, JukeboxBlockEntity entity) {
+        this.world = world;
+        this.entity = entity;
+        this.insertOnly = FilteringStorage.insertOnlyOf(this);
+    }
+
+    public static void register() {
+        ItemStorage.SIDED.registerForBlocks((world, pos, state, entity, side) -> {
+            if (!RedBits.CONFIG.jukebox_integration || !(entity instanceof JukeboxBlockEntity jukebox)) {
+                return null;
+            }
+
+            Long2ObjectOpenHashMap<JukeboxStorage> storages = STORAGES.computeIfAbsent(world, key -> new Long2ObjectOpenHashMap<>());
+            JukeboxStorage storage = storages.get(pos.asLong());
+
+            if (storage == null || storage.entity != jukebox) {
+                storages.put(pos.asLong(), storage = new JukeboxStorage(world, jukebox));
+            }
+
+            return side == Direction.DOWN ? storage : storage.insertOnly;
+        }, Blocks.JUKEBOX);
+
+        ServerBlockEntityEvents.BLOCK_ENTITY_UNLOAD.register((entity, world) -> {
+            Long2ObjectOpenHashMap<JukeboxStorage> storages = STORAGES.get(world);
+
+            if (storages != null) {
+                storages.remove(entity.getPos().asLong());
+            }
+        });
+    }
+
+    @Override
+    protected ItemStack getStack() {
+        return entity.getRecord();
+    }
+
+    @Override
+    protected void setStack(ItemStack stack) {
+        entity.setRecord(stack);
+    }
+
+    @Override
+    protected boolean canInsert(ItemVariant variant) {
+        return variant.getItem() instanceof MusicDiscItem;
+    }
+
+    @Override
+    protected int getCapacity(ItemVariant variant) {
+        return 1;
+    }
+
+    @Override
+    protected void onFinalCommit() {
+        if (!entity.isRemoved() && entity.getCachedState().getBlock() == Blocks.JUKEBOX) {
+            JukeboxInventory.sync(world, entity.getPos(), entity.getCachedState(), getStack().isEmpty());
+        }
+    }
+
+}
@@ -0,0 +1,113 @@
+package net.darktree.redbits.utils;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.mob.HostileEntity;
+import net.minecraft.entity.passive.TameableEntity;
+import net.minecraft.entity.passive.VillagerEntity;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.util.math.Box;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.world.World;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Per-world count of entities that can trigger the filtered pressure plates, kept per chunk section.
+ * The index is updated by the server entity manager as entities are added, removed and moved between
+ * sections, so plates can skip entity queries entirely in sections with no matching entities.
+ */
+public class OccupancyIndex {
+
+    public enum Category {
+        PLAYER(PlayerEntity.class),
+        HOSTILE(HostileEntity.class),
+        VILLAGER(VillagerEntity.class),
+        PET(TameableEntity.class);
+
+        private static final Category[] VALUES = values();
+        private final Class<? extends Entity> clazz;
+
+        Category(Class<? extends Entity> clazz) {
+            this.clazz = clazz;
+        }
+
+        public static Category of(Object entity) {
+            for (Category category : VALUES) {
+                if (category.clazz.isInstance(entity)) return category;
+            }
+
+            return null;
+        }
+
+        public static Category byClass(Class<?> clazz) {
+            for (Category category : VALUES) {
+                if (category.clazz == clazz) return category;
+            }
+
+            return null;
+        }
+    }
+
+    // same margin the entity section cache uses for box queries
+    private static final double MARGIN = 2.0;
+    private static final Map<World, Long2ObjectOpenHashMap<int[]>> INDEX = new WeakHashMap<>();
+
+    public static void add(World world, long section, Category category) {
+        INDEX.computeIfAbsent(world, key -> new Long2ObjectOpenHashMap<>()).computeIfAbsent(section, key -> new int[Category.VALUES.length])[category.ordinal()] ++;
+    }
+
+    public static void remove(World world, long section, Category category) {
+        Long2ObjectOpenHashMap<int[]> sections = INDEX.get(world);
+
+        if (sections != null) {
+            int[] counts = sections.get(section);
+
+            if (counts != null) {
+                counts[category.ordinal()] --;
+
+                for (int count : counts) {
+                    if (count > 0) return;
+                }
+
+                sections.remove(section);
+            }
+        }
+    }
+
+    /**
+     * Checks if any of the sections an entity query for the given box would visit
+     * contains at least one entity of the given category
+     */
+    public static boolean isOccupied(World world, Box box, Category category) {
+        Long2ObjectOpenHashMap<int[]> sections = INDEX.get(world);
+
+        if (sections == null || sections.isEmpty()) {
+            return false;
+        }
+
+        int minX = ChunkSectionPos.getSectionCoord(MathHelper.floor(box.minX - MARGIN));
+        int minY = ChunkSectionPos.getSectionCoord(MathHelper.floor(box.minY - MARGIN));
+        int minZ = ChunkSectionPos.getSectionCoord(MathHelper.floor(box.minZ - MARGIN));
+        int maxX = ChunkSectionPos.getSectionCoord(MathHelper.floor(box.maxX + MARGIN));
+        int maxY = ChunkSectionPos.getSectionCoord(MathHelper.floor(box.maxY + MARGIN));
+        int maxZ = ChunkSectionPos.getSectionCoord(MathHelper.floor(box.maxZ + MARGIN));
+
+        for (int x = minX; x <= maxX; x ++) {
+            for (int y = minY; y <= maxY; y ++) {
+                for (int z = minZ; z <= maxZ; z ++) {
+                    int[] counts = sections.get(ChunkSectionPos.asLong(x, y, z));
+
+                    if (counts != null && counts[category.ordinal()] > 0) {
+                        return true;
+                    }
+                }
+            }
+        }
+
+        return false;
+    }
+
+}
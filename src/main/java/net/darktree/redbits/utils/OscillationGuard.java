@@ -0,0 +1,167 @@
+package net.darktree.redbits.utils;
+
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import net.darktree.redbits.RedBits;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerWorldEvents;
+import net.minecraft.block.Block;
+import net.minecraft.registry.Registries;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Protects the server from inverter rings and fast clocks built from RedBits gates and torches.
+ * Scheduled ticks of each position are counted in a sliding window (the current window plus the weighted
+ * rest of the previous one), a position that goes over the configured limit is frozen for a while: its ticks
+ * are postponed until the freeze ends, which also stops the loop it is a part of. Every freeze is logged and
+ * kept in a short list of reports for the /redbits guard command.
+ */
+public class OscillationGuard {
+
+    private static final int WINDOW = 100;
+    private static final int FREEZE_TICKS = 200;
+    private static final int MAX_REPORTS = 32;
+
+    private static final Map<World, OscillationGuard> GUARDS = new WeakHashMap<>();
+    private static final Deque<Report> REPORTS = new ArrayDeque<>();
+
+    private Long2IntOpenHashMap current = new Long2IntOpenHashMap();
+    private Long2IntOpenHashMap previous = new Long2IntOpenHashMap();
+    private final Long2LongOpenHashMap frozen = new Long2LongOpenHashMap();
+    private long window;
+
+    public record Report(ServerWorld world, BlockPos pos, Block block, long time, int updates) {
+
+        @Override
+        public String toString() {
+            return Registries.BLOCK.getId(block) + " at " + pos.toShortString() + " in " + world.getRegistryKey().getValue() + " (" + updates + " updates in " + WINDOW + " ticks)";
+        }
+
+    }
+
+    public static void register() {
+        ServerWorldEvents.UNLOAD.register((server, world) -> {
+            GUARDS.remove(world);
+            REPORTS.removeIf(report -> report.world == world);
+        });
+    }
+
+    public static boolean isEnabled() {
+        return RedBits.CONFIG.oscillation_guard;
+    }
+
+    /**
+     * Called at the start of scheduledTick of the guarded blocks,
+     * returns true if the position is frozen and the tick should be skipped
+     */
+    public static boolean intercept(ServerWorld world, BlockPos pos, Block block) {
+        if (!isEnabled()) {
+            return false;
+        }
+
+        return GUARDS.computeIfAbsent(world, key -> new OscillationGuard()).check(world, pos, block);
+    }
+
+    /**
+     * Recent freezes, the newest first
+     */
+    public static List<Report> getReports() {
+        return new ArrayList<>(REPORTS);
+    }
+
+    public static int getFrozenCount() {
+        int count = 0;
+
+        for (OscillationGuard guard : GUARDS.values()) {
+            count += guard.frozen.size();
+        }
+
+        return count;
+    }
+
+    /**
+     * Lifts all freezes, postponed ticks run normally once they are due
+     */
+    public static int clear() {
+        int count = getFrozenCount();
+
+        for (OscillationGuard guard : GUARDS.values()) {
+            guard.frozen.clear();
+            guard.current.clear();
+            guard.previous.clear();
+        }
+
+        REPORTS.clear();
+        return count;
+    }
+
+    private boolean check(ServerWorld world, BlockPos pos, Block block) {
+        long now = world.getTime();
+        long key = pos.asLong();
+
+        roll(now);
+
+        long until = frozen.get(key);
+
+        if (until > now) {
+            GateTickQueue.schedule(world, pos, block, (int) (until - now));
+            return true;
+        }
+
+        if (until != 0) {
+            frozen.remove(key);
+        }
+
+        int count = current.addTo(key, 1) + 1;
+        int updates = count + (int) (previous.get(key) * (WINDOW - now % WINDOW) / WINDOW);
+
+        if (updates <= RedBits.CONFIG.oscillation_guard_limit) {
+            return false;
+        }
+
+        frozen.put(key, now + FREEZE_TICKS);
+        current.remove(key);
+        previous.remove(key);
+
+        Report report = new Report(world, pos.toImmutable(), block, now, updates);
+        RedBits.LOGGER.warn("Froze oscillating {} for {} ticks", report, FREEZE_TICKS);
+
+        if (REPORTS.size() >= MAX_REPORTS) {
+            REPORTS.removeLast();
+        }
+
+        REPORTS.addFirst(report);
+        GateTickQueue.schedule(world, pos, block, FREEZE_TICKS);
+        return true;
+    }
+
+    private void roll(long now) {
+        long index = now / WINDOW;
+
+        if (index == window) {
+            return;
+        }
+
+        Long2IntOpenHashMap older = previous;
+        older.clear();
+
+        if (index == window + 1) {
+            previous = current;
+            current = older;
+        } else {
+            current.clear();
+        }
+
+        window = index;
+        frozen.long2LongEntrySet().removeIf(entry -> entry.getLongValue() <= now);
+    }
+
+}
@@ -0,0 +1,134 @@
+package net.darktree.redbits.utils;
+
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import net.darktree.redbits.RedBits;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerWorldEvents;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Per-tick memo of the redstone power received by lamps, emitters and jukeboxes, keyed by packed position.
+ * Received power depends on blocks up to two blocks away (through strongly powered solid blocks),
+ * so entries in that range are dropped whenever a block state is set or a neighbor update is sent from there,
+ * the whole memo is cleared at the end of every world tick.
+ */
+public class PowerCache {
+
+    private static final int RANGE = 2;
+    private static final int[][] OFFSETS;
+    private static final Map<World, Long2IntOpenHashMap> CACHE = new WeakHashMap<>();
+
+    static {
+        int count = 0;
+        int[][] offsets = new int[125][];
+
+        for (int x = -RANGE; x <= RANGE; x ++) {
+            for (int y = -RANGE; y <= RANGE; y ++) {
+                for (int z = -RANGE; z <= RANGE; z ++) {
+                    if (Math.abs(x) + Math.abs(y) + Math.abs(z) <= RANGE) {
+                        offsets[count ++] = new int[] {x, y, z};
+                    }
+                }
+            }
+        }
+
+        OFFSETS = new int[count][];
+        System.arraycopy(offsets, 0, OFFSETS, 0, count);
+    }
+
+    public static void register() {
+        ServerTickEvents.END_WORLD_TICK.register(PowerCache::clear);
+        ServerWorldEvents.UNLOAD.register((server, world) -> CACHE.remove(world));
+    }
+
+    public static boolean isEnabled() {
+        return RedBits.CONFIG.power_cache;
+    }
+
+    /**
+     * Drops all memoized values of the given world, called at the end of every world tick
+     */
+    public static void clear(World world) {
+        Long2IntOpenHashMap powers = CACHE.get(world);
+
+        if (powers != null) {
+            powers.clear();
+        }
+    }
+
+    /**
+     * Same as World#getReceivedRedstonePower, memoized on the server
+     */
+    public static int getReceivedPower(World world, BlockPos pos) {
+        if (world.isClient || !isEnabled()) {
+            return world.getReceivedRedstonePower(pos);
+        }
+
+        Long2IntOpenHashMap powers = CACHE.computeIfAbsent(world, key -> {
+            Long2IntOpenHashMap map = new Long2IntOpenHashMap();
+            map.defaultReturnValue(-1);
+            return map;
+        });
+
+        long key = pos.asLong();
+        int power = powers.get(key);
+
+        if (power == -1) {
+            power = world.getReceivedRedstonePower(pos);
+            powers.put(key, power);
+        }
+
+        return power;
+    }
+
+    /**
+     * Same as World#isReceivingRedstonePower, memoized on the server
+     */
+    public static boolean isReceivingPower(World world, BlockPos pos) {
+        return getReceivedPower(world, pos) > 0;
+    }
+
+    /**
+     * Drops all memoized values that could depend on the block at the given position, called for every
+     * block change and neighbor update so it returns early on the client, when disabled, or with nothing memoized
+     */
+    public static void invalidate(World world, BlockPos pos) {
+        if (world.isClient || !isEnabled() || CACHE.isEmpty()) {
+            return;
+        }
+
+        Long2IntOpenHashMap powers = CACHE.get(world);
+
+        if (powers == null || powers.isEmpty()) {
+            return;
+        }
+
+        long center = pos.asLong();
+
+        // with few entries it is cheaper to check all of them
+        if (powers.size() <= OFFSETS.length) {
+            int x = pos.getX(), y = pos.getY(), z = pos.getZ();
+            LongIterator iterator = powers.keySet().iterator();
+
+            while (iterator.hasNext()) {
+                long key = iterator.nextLong();
+
+                if (Math.abs(BlockPos.unpackLongX(key) - x) + Math.abs(BlockPos.unpackLongY(key) - y) + Math.abs(BlockPos.unpackLongZ(key) - z) <= RANGE) {
+                    iterator.remove();
+                }
+            }
+
+            return;
+        }
+
+        for (int[] offset : OFFSETS) {
+            powers.remove(BlockPos.add(center, offset[0], offset[1], offset[2]));
+        }
+    }
+
+}
@@ -0,0 +1,167 @@
+package net.darktree.redbits.utils;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.darktree.redbits.RedBits;
+import net.darktree.redbits.blocks.VisionSensorBlock;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerChunkEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.hit.BlockHitResult;
+import net.minecraft.util.hit.HitResult;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.util.math.ChunkSectionPos;
+import net.minecraft.world.World;
+import net.minecraft.world.chunk.ChunkSection;
+import net.minecraft.world.chunk.WorldChunk;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Server-side vision sensor detection. Sensor positions are indexed per chunk, and each
+ * tick every player that has an indexed sensor nearby has its view raycast on the server.
+ * Players with no sensors around them cost only the chunk lookups.
+ */
+public class SensorIndex {
+
+    // same range the look-at packet is validated against
+    private static final int RANGE = 128;
+    private static final int CHUNK_RANGE = RANGE >> 4;
+
+    private static final Map<World, Long2ObjectOpenHashMap<LongOpenHashSet>> INDEX = new WeakHashMap<>();
+    private static final Map<PlayerEntity, BlockPos> LOOKING = new WeakHashMap<>();
+
+    public static void register() {
+        ServerChunkEvents.CHUNK_LOAD.register(SensorIndex::onChunkLoad);
+        ServerChunkEvents.CHUNK_UNLOAD.register(SensorIndex::onChunkUnload);
+        ServerTickEvents.END_WORLD_TICK.register(SensorIndex::tick);
+    }
+
+    public static boolean isEnabled() {
+        return RedBits.CONFIG.vision_sensor_server_detection;
+    }
+
+    public static void add(World world, BlockPos pos) {
+        if (isEnabled() && !world.isClient) {
+            INDEX.computeIfAbsent(world, key -> new Long2ObjectOpenHashMap<>()).computeIfAbsent(ChunkPos.toLong(pos), key -> new LongOpenHashSet()).add(pos.asLong());
+        }
+    }
+
+    public static void remove(World world, BlockPos pos) {
+        Long2ObjectOpenHashMap<LongOpenHashSet> chunks = INDEX.get(world);
+
+        if (chunks != null) {
+            long key = ChunkPos.toLong(pos);
+            LongOpenHashSet sensors = chunks.get(key);
+
+            if (sensors != null && sensors.remove(pos.asLong()) && sensors.isEmpty()) {
+                chunks.remove(key);
+            }
+        }
+    }
+
+    private static void onChunkLoad(ServerWorld world, WorldChunk chunk) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        ChunkSection[] sections = chunk.getSectionArray();
+        BlockPos.Mutable pos = new BlockPos.Mutable();
+
+        for (int i = 0; i < sections.length; i ++) {
+            ChunkSection section = sections[i];
+
+            if (section.isEmpty() || !section.getBlockStateContainer().hasAny(state -> state.getBlock() instanceof VisionSensorBlock)) {
+                continue;
+            }
+
+            int baseY = ChunkSectionPos.getBlockCoord(chunk.sectionIndexToCoord(i));
+
+            for (int y = 0; y < 16; y ++) {
+                for (int z = 0; z < 16; z ++) {
+                    for (int x = 0; x < 16; x ++) {
+                        if (section.getBlockState(x, y, z).getBlock() instanceof VisionSensorBlock) {
+                            add(world, pos.set(chunk.getPos().getStartX() + x, baseY + y, chunk.getPos().getStartZ() + z));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static void onChunkUnload(ServerWorld world, WorldChunk chunk) {
+        Long2ObjectOpenHashMap<LongOpenHashSet> chunks = INDEX.get(world);
+
+        if (chunks != null) {
+            chunks.remove(chunk.getPos().toLong());
+        }
+    }
+
+    private static void tick(ServerWorld world) {
+        Long2ObjectOpenHashMap<LongOpenHashSet> chunks = INDEX.get(world);
+
+        if (!isEnabled() || chunks == null || chunks.isEmpty()) {
+            return;
+        }
+
+        for (ServerPlayerEntity player : world.getPlayers()) {
+            if (player.isSpectator() || !hasSensorsNearby(chunks, player)) {
+                LOOKING.remove(player);
+                continue;
+            }
+
+            HitResult hit = player.raycast(RANGE, 1.0f, false);
+            BlockPos target = null;
+
+            if (hit.getType() == HitResult.Type.BLOCK) {
+                BlockPos pos = ((BlockHitResult) hit).getBlockPos();
+                LongOpenHashSet sensors = chunks.get(ChunkPos.toLong(pos));
+
+                if (sensors != null && sensors.contains(pos.asLong())) {
+                    target = pos;
+                }
+            }
+
+            // trigger only when the player starts looking at a sensor, like the client side event
+            BlockPos previous = target == null ? LOOKING.remove(player) : LOOKING.put(player, target);
+
+            if (target != null && !target.equals(previous)) {
+                VisionSensorBlock.trigger(world, target);
+            }
+        }
+    }
+
+    private static boolean hasSensorsNearby(Long2ObjectOpenHashMap<LongOpenHashSet> chunks, PlayerEntity player) {
+        int cx = ChunkSectionPos.getSectionCoord(player.getBlockX());
+        int cz = ChunkSectionPos.getSectionCoord(player.getBlockZ());
+
+        // if there are fewer indexed chunks than chunks in range check the index instead
+        if (chunks.size() < (2 * CHUNK_RANGE + 1) * (2 * CHUNK_RANGE + 1)) {
+            for (Long2ObjectMap.Entry<LongOpenHashSet> entry : chunks.long2ObjectEntrySet()) {
+                long key = entry.getLongKey();
+
+                if (Math.abs(ChunkPos.getPackedX(key) - cx) <= CHUNK_RANGE && Math.abs(ChunkPos.getPackedZ(key) - cz) <= CHUNK_RANGE) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        for (int x = cx - CHUNK_RANGE; x <= cx + CHUNK_RANGE; x ++) {
+            for (int z = cz - CHUNK_RANGE; z <= cz + CHUNK_RANGE; z ++) {
+                if (chunks.containsKey(ChunkPos.toLong(x, z))) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+}
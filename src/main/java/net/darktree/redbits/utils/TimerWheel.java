@@ -0,0 +1,249 @@
+package net.darktree.redbits.utils;
+
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongComparator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.darktree.redbits.RedBits;
+import net.darktree.redbits.blocks.TimerBlock;
+import net.darktree.redbits.profiler.ComponentProfiler;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerWorldEvents;
+import net.minecraft.block.BlockState;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.World;
+import net.minecraft.world.tick.TickPriority;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Shared clock for timers, instead of every timer putting a scheduled tick into the world
+ * tick scheduler each period, timers are placed into one of the wheel slots. The timers due in a slot
+ * are ticked in the block tick phase, with the same high priority and in the same order as their scheduled
+ * ticks would be, see {@link BlockTickPhase}. Before a chunk is saved all of its entries are moved back
+ * into the world tick scheduler, so that they are stored with the chunk.
+ */
+public class TimerWheel implements BlockTickPhase.Source {
+
+    // the longest timer period is 2^4 ticks, so a single wheel level covers all of them
+    private static final int SLOTS = 16;
+    private static final int MASK = SLOTS - 1;
+    private static final long NONE = Long.MIN_VALUE;
+
+    private static final Map<World, TimerWheel> WHEELS = new WeakHashMap<>();
+
+    private final LongArrayList[] slots = new LongArrayList[SLOTS];
+    private final Long2LongOpenHashMap due = new Long2LongOpenHashMap();
+    private final Long2LongOpenHashMap orders = new Long2LongOpenHashMap();
+    private final Long2ObjectOpenHashMap<LongOpenHashSet> chunks = new Long2ObjectOpenHashMap<>();
+    private LongArrayList spare = new LongArrayList();
+
+    // timers collected for the current block tick phase, sorted by tick order
+    private final LongArrayList collected = new LongArrayList();
+    private final LongComparator byOrder = (a, b) -> Long.compare(orders.get(a), orders.get(b));
+    private int next;
+    private long time;
+
+    private TimerWheel() {
+        for (int i = 0; i < SLOTS; i ++) {
+            slots[i] = new LongArrayList();
+        }
+
+        due.defaultReturnValue(NONE);
+    }
+
+    public static void register() {
+        BlockTickPhase.register(WHEELS::get);
+        ServerLifecycleEvents.SERVER_STOPPING.register(server -> WHEELS.forEach((world, wheel) -> wheel.persistAll(world)));
+        ServerWorldEvents.UNLOAD.register((server, world) -> WHEELS.remove(world));
+    }
+
+    public static boolean isEnabled() {
+        return RedBits.CONFIG.shared_timer_wheel;
+    }
+
+    /**
+     * Schedules the timer at the given position to be ticked after the given delay,
+     * returns false if the shared clock is not used and a normal scheduled tick should be used instead
+     */
+    public static boolean schedule(World world, BlockPos pos, int delay) {
+        if (!isEnabled() || world.isClient || delay < 1 || delay > SLOTS) {
+            return false;
+        }
+
+        WHEELS.computeIfAbsent(world, key -> new TimerWheel()).add(pos.asLong(), world.getTime() + delay, world.getTickOrder());
+        ComponentProfiler.count(world, ComponentProfiler.Kind.SCHEDULE_TICK);
+        return true;
+    }
+
+    public static boolean isScheduled(World world, BlockPos pos) {
+        if (world.isClient) {
+            return false;
+        }
+
+        TimerWheel wheel = WHEELS.get(world);
+        return wheel != null && wheel.due.containsKey(pos.asLong());
+    }
+
+    public static void remove(World world, BlockPos pos) {
+        if (world.isClient) {
+            return;
+        }
+
+        TimerWheel wheel = WHEELS.get(world);
+
+        if (wheel != null) {
+            wheel.remove(pos.asLong());
+        }
+    }
+
+    /**
+     * Moves all entries from the given chunk into the world tick scheduler,
+     * called right before the chunk is saved
+     */
+    public static void persist(ServerWorld world, ChunkPos chunk) {
+        TimerWheel wheel = WHEELS.get(world);
+
+        if (wheel != null) {
+            LongOpenHashSet timers = wheel.chunks.get(chunk.toLong());
+
+            if (timers != null) {
+                for (long pos : timers.toLongArray()) {
+                    wheel.persist(world, pos);
+                }
+            }
+        }
+    }
+
+    private void add(long pos, long time, long order) {
+        due.put(pos, time);
+        orders.put(pos, order);
+        slots[(int) (time & MASK)].add(pos);
+        chunks.computeIfAbsent(chunkOf(pos), key -> new LongOpenHashSet()).add(pos);
+    }
+
+    private void remove(long pos) {
+        if (due.remove(pos) != NONE) {
+            orders.remove(pos);
+            long chunk = chunkOf(pos);
+            LongOpenHashSet timers = chunks.get(chunk);
+
+            if (timers != null && timers.remove(pos) && timers.isEmpty()) {
+                chunks.remove(chunk);
+            }
+        }
+    }
+
+    private void persist(World world, long packed) {
+        long time = due.get(packed);
+        remove(packed);
+
+        BlockPos pos = BlockPos.fromLong(packed);
+        BlockState state = world.getBlockState(pos);
+
+        if (state.getBlock() instanceof TimerBlock) {
+            world.scheduleBlockTick(pos, state.getBlock(), (int) Math.max(1, time - world.getTime()), TickPriority.HIGH);
+        }
+    }
+
+    private void persistAll(World world) {
+        for (long pos : due.keySet().toLongArray()) {
+            persist(world, pos);
+        }
+    }
+
+    @Override
+    public void collect(ServerWorld world, long time) {
+        this.time = time;
+        collected.clear();
+        next = 0;
+
+        int slot = (int) (time & MASK);
+        LongArrayList timers = slots[slot];
+
+        if (timers.isEmpty()) {
+            return;
+        }
+
+        // timers scheduled while this slot is processed go into the fresh list
+        slots[slot] = spare;
+
+        for (int i = 0; i < timers.size(); i ++) {
+            long packed = timers.getLong(i);
+            long due = this.due.get(packed);
+
+            if (due != time) {
+                // still waiting for a later turn of the wheel, otherwise a stale entry
+                if (due > time && (due & MASK) == slot) slots[slot].add(packed);
+                continue;
+            }
+
+            // chunks outside of the ticking range are frozen, same as with scheduled ticks
+            if (!world.shouldTickBlocksInChunk(chunkOf(packed))) {
+                remove(packed);
+                BlockPos pos = BlockPos.fromLong(packed);
+                BlockState state = world.getBlockState(pos);
+
+                if (state.getBlock() instanceof TimerBlock) {
+                    world.scheduleBlockTick(pos, state.getBlock(), 1, TickPriority.HIGH);
+                }
+
+                continue;
+            }
+
+            // the timer stays scheduled until it is ticked, same as a collected vanilla tick
+            collected.add(packed);
+        }
+
+        timers.clear();
+        spare = timers;
+        collected.sort(byOrder);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return next < collected.size();
+    }
+
+    @Override
+    public long getNextTime() {
+        return time;
+    }
+
+    @Override
+    public int getNextPriority() {
+        return TickPriority.HIGH.getIndex();
+    }
+
+    @Override
+    public long getNextOrder() {
+        return orders.get(collected.getLong(next));
+    }
+
+    @Override
+    public void runNext(ServerWorld world) {
+        long packed = collected.getLong(next ++);
+
+        // the timer was removed or scheduled again after it was collected
+        if (due.get(packed) != time) {
+            return;
+        }
+
+        remove(packed);
+        BlockPos pos = BlockPos.fromLong(packed);
+        BlockState state = world.getBlockState(pos);
+
+        if (state.getBlock() instanceof TimerBlock) {
+            state.scheduledTick(world, pos, world.random);
+        }
+    }
+
+    private static long chunkOf(long pos) {
+        return ChunkPos.toLong(BlockPos.unpackLongX(pos) >> 4, BlockPos.unpackLongZ(pos) >> 4);
+    }
+
+}